@@ -0,0 +1,111 @@
+package com.bz.librarysystem.archive;
+
+import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.repository.ArchivedLoanRepository;
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves returned loans older than {@code library.archive.min-age} from loans to loan_history, so loans stays
+ * the size of the open loans plus recent returns. Each batch of {@code library.archive.batch-size} loans is one
+ * short transaction: it locks the oldest returned loans (skipping any another archiver holds), copies them with
+ * one insert-select and deletes them. Open loans are never touched, so borrowing and returning go on meanwhile.
+ */
+@Component
+public class LoanArchiver implements MeterBinder {
+
+    private final Logger logger = LoggerFactory.getLogger(LoanArchiver.class);
+
+    private final LoanRecordRepository loanRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final LoanHistoryPartitions loanHistoryPartitions;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minAge;
+    private final int batchSize;
+
+    private final LongAdder archived = new LongAdder();
+
+    public LoanArchiver(LoanRecordRepository loanRepository,
+                        ArchivedLoanRepository archivedLoanRepository,
+                        LoanHistoryPartitions loanHistoryPartitions,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${library.archive.min-age:90d}") Duration minAge,
+                        @Value("${library.archive.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("library.archive.batch-size must be at least 1");
+        }
+        this.loanRepository = loanRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.loanHistoryPartitions = loanHistoryPartitions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${library.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+
+    /**
+     * Archives every loan returned before now minus the minimum age; returns how many were moved.
+     */
+    public int archive() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        LocalDateTime oldest = loanRepository.findOldestReturnedAt().orElse(null);
+        if (oldest == null || !oldest.isBefore(cutoff)) {
+            return 0;
+        }
+        loanHistoryPartitions.ensureMonths(YearMonth.from(oldest), YearMonth.from(cutoff));
+
+        int total = 0;
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived.add(count);
+            total += count;
+        } while (count == batchSize);
+        logger.info("Archived {} loans returned before {} in {} ms", total, cutoff,
+                (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<UUID> ids = loanRepository.findReturnedBeforeForUpdate(cutoff, Limit.of(batchSize)).stream()
+                .map(LoanRecord::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedLoanRepository.copyFromLoans(ids);
+        loanRepository.deleteAllByIdIn(ids);
+        return ids.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.archive.loans", archived, LongAdder::sum)
+                .description("Returned loans moved to loan_history")
+                .register(registry);
+    }
+}
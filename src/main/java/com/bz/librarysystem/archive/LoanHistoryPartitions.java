@@ -0,0 +1,47 @@
+package com.bz.librarysystem.archive;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the monthly partitions of loan_history on PostgreSQL, where the table is range-partitioned by
+ * returned_at (migration V8). On H2, which has no partitioning, loan_history is a plain table and this does
+ * nothing.
+ */
+@Component
+class LoanHistoryPartitions {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean partitioned;
+    private final Set<YearMonth> created = ConcurrentHashMap.newKeySet();
+
+    LoanHistoryPartitions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitioned = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Makes sure every month from {@code first} to {@code last} has its partition. Runs in its own statement
+     * per month, outside the archive batches, so the brief lock it takes on loan_history is not held by them.
+     */
+    void ensureMonths(YearMonth first, YearMonth last) {
+        if (!partitioned) {
+            return;
+        }
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!created.contains(month)) {
+                jdbcTemplate.execute(String.format(
+                        "create table if not exists loan_history_%d_%02d partition of loan_history " +
+                                "for values from ('%s') to ('%s')",
+                        month.getYear(), month.getMonthValue(), month.atDay(1), month.plusMonths(1).atDay(1)));
+                created.add(month);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bz.librarysystem.audit;
+
+import lombok.Data;
+
+@Data
+public class AuditEvent {
+    private final long timestamp;
+    private final String operation;
+    // Compact argument summary, e.g. "bookId=...,borrowerId=..."
+    private final String ids;
+    private final String outcome;
+    private final long durationNanos;
+}
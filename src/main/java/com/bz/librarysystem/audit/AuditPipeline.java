@@ -0,0 +1,134 @@
+package com.bz.librarysystem.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves audit events off the request thread: callers sample and enqueue into a bounded
+ * ring buffer, a single background thread writes them to the "library.audit" logger.
+ * A full buffer drops the event and counts it rather than blocking the request.
+ */
+@Component
+public class AuditPipeline implements MeterBinder {
+
+    static final String AUDIT_LOGGER = "library.audit";
+
+    private final Logger auditLogger = LoggerFactory.getLogger(AUDIT_LOGGER);
+    private final Logger logger = LoggerFactory.getLogger(AuditPipeline.class);
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final double sampleRate;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditPipeline(@Value("${library.audit.buffer-capacity:8192}") int bufferCapacity,
+                         @Value("${library.audit.sample-rate:1.0}") double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("library.audit.sample-rate must be between 0 and 1");
+        }
+        this.buffer = new AuditRingBuffer<>(bufferCapacity);
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Whether the next successful call should be audited; failures are always recorded.
+     */
+    public boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void record(AuditEvent event) {
+        if (buffer.offer(event)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        }
+        // Flush whatever was queued before shutdown
+        drain();
+    }
+
+    int drain() {
+        int count = 0;
+        AuditEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            count++;
+        }
+        return count;
+    }
+
+    private void write(AuditEvent event) {
+        try {
+            auditLogger.info("ts={} op={} outcome={} durationNs={} {}", event.getTimestamp(), event.getOperation(),
+                    event.getOutcome(), event.getDurationNanos(), event.getIds());
+            written.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Could not write audit event {}", event, e);
+        }
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long written() {
+        return written.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.audit.events.recorded", recorded, LongAdder::sum)
+                .description("Audit events accepted into the buffer")
+                .register(registry);
+        FunctionCounter.builder("library.audit.events.dropped", dropped, LongAdder::sum)
+                .description("Audit events dropped because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("library.audit.events.written", written, LongAdder::sum)
+                .description("Audit events written by the background writer")
+                .register(registry);
+        Gauge.builder("library.audit.buffer.size", buffer, AuditRingBuffer::size)
+                .description("Audit events waiting to be written")
+                .register(registry);
+    }
+}
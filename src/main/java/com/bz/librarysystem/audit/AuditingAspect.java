@@ -2,23 +2,63 @@ package com.bz.librarysystem.audit;
 
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.UUID;
+
 @Component
 @Aspect
 class AuditingAspect {
 
-    private final Logger logger = LoggerFactory.getLogger(AuditingAspect.class);
+    private final AuditPipeline auditPipeline;
+
+    AuditingAspect(AuditPipeline auditPipeline) {
+        this.auditPipeline = auditPipeline;
+    }
+
+    @Around("execution(* com.bz.librarysystem.service.LibraryService+.*(..))")
+    public Object auditServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        long startTime = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            if (auditPipeline.sample()) {
+                record(joinPoint, "success", startTime);
+            }
+            return result;
+        } catch (Throwable e) {
+            record(joinPoint, e.getClass().getSimpleName(), startTime);
+            throw e;
+        }
+    }
+
+    private void record(ProceedingJoinPoint joinPoint, String outcome, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        auditPipeline.record(new AuditEvent(System.currentTimeMillis(), joinPoint.getSignature().getName(),
+                summarizeArguments(joinPoint), outcome, duration));
+    }
 
-    @Around("execution(* com.bz.librarysystem..*(..))")
-    public Object logAroundMethod(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long timeTaken = System.currentTimeMillis() - startTime;
-        logger.info("Exit: {}() with result = {} and time taken = {} ms", joinPoint.getSignature().getName(), result, timeTaken);
-        return result;
+    // Only ids and collection sizes, never whole DTOs or result lists
+    private static String summarizeArguments(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            String value = null;
+            if (args[i] instanceof UUID id) {
+                value = id.toString();
+            } else if (args[i] instanceof Collection<?> collection) {
+                value = "size:" + collection.size();
+            }
+            if (value != null) {
+                if (!summary.isEmpty()) {
+                    summary.append(',');
+                }
+                summary.append(names != null ? names[i] : "arg" + i).append('=').append(value);
+            }
+        }
+        return summary.toString();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.bz.librarysystem.config;
+
+import com.bz.librarysystem.lock.BookLockManager;
+import com.bz.librarysystem.lock.RefCountedBookLockManager;
+import com.bz.librarysystem.lock.StripedBookLockManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BookLockConfig {
+
+    @Value("${library.locks.type:striped}")
+    private String type;
+
+    @Value("${library.locks.stripes:1024}")
+    private int stripes;
+
+    @Value("${library.locks.timeout:2s}")
+    private Duration timeout;
+
+    @Bean
+    public BookLockManager bookLockManager() {
+        return switch (type) {
+            case "striped" -> new StripedBookLockManager(stripes, timeout);
+            case "ref-counted" -> new RefCountedBookLockManager(timeout);
+            default -> throw new IllegalStateException("Unknown library.locks.type: " + type);
+        };
+    }
+}
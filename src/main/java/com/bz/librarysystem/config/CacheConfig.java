@@ -0,0 +1,228 @@
+package com.bz.librarysystem.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through caches for the catalog. Entries are evicted by the write paths in
+ * {@code LibraryServiceImpl} once they commit, and a read that missed before an eviction cannot put the rows it
+ * loaded back afterwards. The {@link CatalogVersion} behind the ETags of the catalog endpoints clears them when
+ * another instance changes the catalog; the time limit bounds everything else, such as rows changed by hand.
+ * <p>
+ * With read replicas, a read right after an eviction may reload rows a replica has not caught up on. Every explicit
+ * eviction is therefore repeated once the replicas are past it: the largest lag they are allowed plus one health
+ * check interval.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** The full {@code getAllBooks} list, a single entry. */
+    public static final String BOOKS = "books";
+    /** Keyset pages by cursor and limit. */
+    public static final String BOOK_PAGES = "bookPages";
+    /** Inventory pages by filter, page and size. */
+    public static final String INVENTORY = "inventory";
+    /** A single book by id. */
+    public static final String BOOK = "book";
+    /** All copies of an ISBN. */
+    public static final String BOOKS_BY_ISBN = "booksByIsbn";
+
+    @Value("${library.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${library.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Value("${library.cache.version-retry-interval:1s}")
+    private Duration versionRetryInterval;
+
+    @Value("${library.datasource.replicas:}")
+    private String replicas;
+
+    @Value("${library.datasource.max-replica-lag:5s}")
+    private Duration maxReplicaLag;
+
+    @Value("${library.datasource.health-check-interval:5s}")
+    private Duration replicaCheckInterval;
+
+    @Bean
+    public CatalogVersion catalogVersion(JdbcTemplate jdbcTemplate, CacheManager cacheManager) {
+        return new CatalogVersion(jdbcTemplate, cacheManager, versionRetryInterval);
+    }
+
+    @Bean
+    public CacheManager cacheManager() {
+        if (!enabled) {
+            return new NoOpCacheManager();
+        }
+        ScheduledExecutorService evictAgain = replicas.isBlank() ? null
+                : Executors.newSingleThreadScheduledExecutor(daemonThreads());
+        long evictAgainAfterMillis = maxReplicaLag.plus(replicaCheckInterval).toMillis();
+        CaffeineCacheManager caffeine = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CatalogCache(name, cache, isAllowNullValues(), evictAgain, evictAgainAfterMillis);
+            }
+        };
+        caffeine.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        // Naming the caches up front creates them at startup, so the cache metrics are bound for each one
+        caffeine.setCacheNames(List.of(BOOKS, BOOK_PAGES, INVENTORY, BOOK, BOOKS_BY_ISBN));
+        caffeine.setAllowNullValues(false);
+        // Evictions wait for the commit, so a reader cannot reload the old rows in between
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("catalog-cache-evict-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Keeps a read from caching rows it loaded before an eviction, and repeats every explicit eviction later when
+     * there are replicas. Size and time based evictions bypass these methods.
+     * <p>
+     * A {@code @Cacheable} read misses, loads and puts on one thread, the put after its own transaction commits. The
+     * miss records how many evictions the cache had seen; if one happened since, the rows may predate the commit
+     * behind it and the put is dropped. Misses are only recorded inside a cached call opened by
+     * {@link CatalogCacheCalls}, and are forgotten when that call ends, whether or not it put anything.
+     */
+    static class CatalogCache extends CaffeineCache {
+        /** Misses on this thread by cache and key, while a cached call is open. */
+        private static final ThreadLocal<Map<List<Object>, Long>> MISSES = new ThreadLocal<>();
+
+        private final ScheduledExecutorService evictAgain;
+        private final long evictAgainAfterMillis;
+        private final AtomicLong evictions = new AtomicLong();
+
+        CatalogCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                     boolean allowNullValues, ScheduledExecutorService evictAgain, long evictAgainAfterMillis) {
+            super(name, cache, allowNullValues);
+            this.evictAgain = evictAgain;
+            this.evictAgainAfterMillis = evictAgainAfterMillis;
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            long seen = evictions.get();
+            ValueWrapper value = super.get(key);
+            if (value == null) {
+                Map<List<Object>, Long> misses = MISSES.get();
+                if (misses != null) {
+                    misses.putIfAbsent(List.of(getName(), key), seen);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            Map<List<Object>, Long> misses = MISSES.get();
+            Long seen = misses == null ? null : misses.remove(List.of(getName(), key));
+            if (seen == null) {
+                super.put(key, value);
+                return;
+            }
+            if (seen != evictions.get()) {
+                return;
+            }
+            super.put(key, value);
+            // An eviction between the check and the put may have missed the entry
+            if (seen != evictions.get()) {
+                super.evict(key);
+            }
+        }
+
+        @Override
+        public void evict(Object key) {
+            evictions.incrementAndGet();
+            super.evict(key);
+            later(() -> super.evict(key));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            evictions.incrementAndGet();
+            boolean evicted = super.evictIfPresent(key);
+            later(() -> super.evictIfPresent(key));
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            evictions.incrementAndGet();
+            super.clear();
+            later(super::clear);
+        }
+
+        @Override
+        public boolean invalidate() {
+            evictions.incrementAndGet();
+            boolean invalidated = super.invalidate();
+            later(super::invalidate);
+            return invalidated;
+        }
+
+        /** Starts recording misses on this thread, unless a call further out already does. */
+        static boolean openCall() {
+            if (MISSES.get() != null) {
+                return false;
+            }
+            MISSES.set(new HashMap<>());
+            return true;
+        }
+
+        /**
+         * Forgets the misses of the call that {@link #openCall()} opened. Inside a caller's transaction its puts
+         * wait for the commit, so the misses are kept until that transaction completes.
+         */
+        static void closeCall() {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        MISSES.remove();
+                    }
+                });
+            } else {
+                MISSES.remove();
+            }
+        }
+
+        private void later(Runnable eviction) {
+            if (evictAgain != null) {
+                evictAgain.schedule(eviction, evictAgainAfterMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
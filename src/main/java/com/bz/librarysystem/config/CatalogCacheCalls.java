@@ -0,0 +1,31 @@
+package com.bz.librarysystem.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds the misses a catalog cache remembers to the {@code @Cacheable} call that made them (see
+ * {@link CacheConfig.CatalogCache}). A call that throws puts nothing, and its misses must not outlive it on a
+ * pooled thread. Runs just outside the cache and transaction advice, so the put after the commit is still inside.
+ */
+@Component
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+class CatalogCacheCalls {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object scopeMisses(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean opened = CacheConfig.CatalogCache.openCall();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (opened) {
+                CacheConfig.CatalogCache.closeCall();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bz.librarysystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change token of the catalog, served as the ETag of the catalog list endpoints. The token is the counter in the
+ * {@code catalog_version} table, bumped once after each committed register, borrow or return, so every instance
+ * and every restart hands out the same tag for the same catalog.
+ * <p>
+ * The bump is its own statement after the commit: inside the write it would hold the row lock until commit and
+ * queue every circulation transaction behind it, and after the commit the token never runs ahead of the rows. It
+ * runs on a background thread, because the committing thread still holds its connection and would need a second
+ * one from the pool. Until the bump lands this instance hands out no tag, so it never answers 304 for a change the
+ * token does not show yet; a bump that fails is retried every {@code retryInterval} until it does land.
+ * <p>
+ * An instance that finds the token moved clears its catalog caches before answering, so a write on another
+ * instance is never served from rows this instance cached before it.
+ */
+public class CatalogVersion {
+
+    private static final List<String> CATALOG_CACHES = List.of(CacheConfig.BOOKS, CacheConfig.BOOK_PAGES,
+            CacheConfig.INVENTORY, CacheConfig.BOOK, CacheConfig.BOOKS_BY_ISBN);
+
+    private final Logger logger = LoggerFactory.getLogger(CatalogVersion.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final long retryIntervalMillis;
+    private final ScheduledExecutorService bumper;
+    // The newest token whose changes the caches have been cleared of
+    private final AtomicLong seen = new AtomicLong(-1);
+    // Committed changes the token does not show yet
+    private final AtomicInteger owed = new AtomicInteger();
+
+    public CatalogVersion(JdbcTemplate jdbcTemplate, CacheManager cacheManager, Duration retryInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.retryIntervalMillis = retryInterval.toMillis();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("catalog-version-");
+        threadFactory.setDaemon(true);
+        this.bumper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Moves the token once the current transaction commits, however often a transaction calls it; right away when
+     * there is no transaction.
+     */
+    public void changed() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            owe();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                owe();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+            }
+        });
+    }
+
+    /**
+     * A weak entity tag for the named resource at the current catalog version. Weak because the same version is
+     * served both gzipped and uncompressed; Tomcat does not compress responses that carry a strong tag. Read it
+     * before the data it tags: the caches are cleared first if the token moved since this instance last looked.
+     *
+     * @return the tag, or {@code null} while a change committed here is not reflected in the token yet
+     */
+    public String etag(String resource) {
+        if (owed.get() > 0) {
+            return null;
+        }
+        long version = current();
+        if (version > seen.get()) {
+            // Cleared before the token is marked seen, so no caller gets the new tag while old rows are cached
+            CATALOG_CACHES.forEach(name -> {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
+            });
+            seen.accumulateAndGet(version, Math::max);
+        }
+        return "W/\"" + resource + '-' + version + '"';
+    }
+
+    long current() {
+        Long version = jdbcTemplate.queryForObject("select version from catalog_version where id = 1", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    private void owe() {
+        owed.incrementAndGet();
+        bumper.execute(this::bump);
+    }
+
+    // One bump covers every change owed when it starts; the runs queued behind it find nothing left to do
+    private void bump() {
+        int changes = owed.get();
+        if (changes == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("update catalog_version set version = version + 1 where id = 1");
+            owed.addAndGet(-changes);
+        } catch (DataAccessException e) {
+            logger.warn("Could not move the catalog version, retrying in {} ms", retryIntervalMillis, e);
+            bumper.schedule(this::bump, retryIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
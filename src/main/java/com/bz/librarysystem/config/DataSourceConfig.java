@@ -0,0 +1,49 @@
+package com.bz.librarysystem.config;
+
+import com.bz.librarysystem.datasource.ReadWriteRoutingDataSource;
+import com.bz.librarysystem.datasource.ReplicaPool;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Splits reads from writes once {@code library.datasource.replicas} lists at least one replica. The primary is
+ * built from {@code spring.datasource.*} as before; without replicas Spring Boot's single pool is used unchanged.
+ */
+@Configuration
+@ConditionalOnExpression("!'${library.datasource.replicas:}'.isBlank()")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(HikariDataSource primaryDataSource,
+                                   @Value("${library.datasource.replicas}") List<String> urls,
+                                   @Value("${library.datasource.replica-selection:round-robin}") String selection,
+                                   @Value("${library.datasource.health-check-interval:5s}") Duration checkInterval,
+                                   @Value("${library.datasource.max-replica-lag:5s}") Duration maxLag,
+                                   @Value("${library.datasource.replica-lag-query:}") String lagQuery) {
+        return new ReplicaPool(primaryDataSource, urls, selection, checkInterval, maxLag, lagQuery);
+    }
+
+    // Lazy, so the connection is taken after the transaction is marked read-only and can be routed by it
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaPool));
+    }
+}
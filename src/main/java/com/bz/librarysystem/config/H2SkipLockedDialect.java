@@ -0,0 +1,24 @@
+package com.bz.librarysystem.config;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+/**
+ * H2 2.2 executes {@code FOR UPDATE SKIP LOCKED}, but Hibernate's {@link H2Dialect} does not declare it and
+ * silently renders a plain, blocking {@code FOR UPDATE}. Declaring it gives the skip-locked copy claim of
+ * {@code BookRepository.findAvailableForUpdate} the same non-blocking behaviour on H2 as on PostgreSQL.
+ */
+public class H2SkipLockedDialect extends H2Dialect {
+
+    public H2SkipLockedDialect() {
+    }
+
+    public H2SkipLockedDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bz.librarysystem.controller;
+
+import com.bz.librarysystem.dto.ImportJobDto;
+import com.bz.librarysystem.importer.ImportFormat;
+import com.bz.librarysystem.importer.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/library/import")
+@Tag(name = "Bulk Import", description = "Streaming CSV/JSONL import of books and borrowers")
+@CrossOrigin(origins = "*")
+public class ImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(
+            summary = "Import books",
+            description = "Accepts a CSV (columns isbn, title, author) or JSONL upload of any size and imports it in " +
+                    "the background. Poll the returned job for progress; rejected rows go to its error file."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Upload accepted, import job queued"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type or missing CSV columns")
+    })
+    @PostMapping(value = "/books", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl",
+            "application/x-ndjson"})
+    public ResponseEntity<ImportJobDto> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream upload) throws IOException {
+        return accepted(importService.importBooks(ImportFormat.of(MediaType.parseMediaType(contentType)), upload));
+    }
+
+    @Operation(
+            summary = "Import borrowers",
+            description = "Accepts a CSV (columns name, email) or JSONL upload of any size and imports it in the " +
+                    "background. Emails already registered or repeated in the upload are rejected per row."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Upload accepted, import job queued"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type or missing CSV columns")
+    })
+    @PostMapping(value = "/borrowers", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl",
+            "application/x-ndjson"})
+    public ResponseEntity<ImportJobDto> importBorrowers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream upload) throws IOException {
+        return accepted(importService.importBorrowers(ImportFormat.of(MediaType.parseMediaType(contentType)), upload));
+    }
+
+    @Operation(
+            summary = "Get import progress",
+            description = "Reports the status of an import job and how many rows were read, imported and rejected."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job status retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Import job not found")
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobDto> getImportJob(
+            @Parameter(description = "ID of the import job") @PathVariable UUID jobId) {
+        return ResponseEntity.ok(importService.getJob(jobId));
+    }
+
+    @Operation(
+            summary = "Get rejected rows",
+            description = "Downloads the rejected rows of an import job as CSV with the columns line, error and record."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Error file retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Import job not found")
+    })
+    @GetMapping(value = "/{jobId}/errors", produces = TEXT_CSV)
+    public ResponseEntity<Resource> getImportErrors(
+            @Parameter(description = "ID of the import job") @PathVariable UUID jobId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV))
+                .body(new FileSystemResource(importService.getErrorFile(jobId)));
+    }
+
+    private static ResponseEntity<ImportJobDto> accepted(ImportJobDto job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/library/import/" + job.getId()))
+                .body(job);
+    }
+}
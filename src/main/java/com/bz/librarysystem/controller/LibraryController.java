@@ -1,13 +1,21 @@
 package com.bz.librarysystem.controller;
 
+import com.bz.librarysystem.config.CatalogVersion;
 import com.bz.librarysystem.dto.BookDto;
 import com.bz.librarysystem.dto.BookInventoryDto;
+import com.bz.librarysystem.dto.BookPageDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
 import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanPageDto;
+import com.bz.librarysystem.dto.LoanResultDto;
 import com.bz.librarysystem.service.LibraryService;
 import com.bz.librarysystem.service.impl.LibraryServiceImpl;
 import com.bz.librarysystem.entity.Book;
 import com.bz.librarysystem.entity.Borrower;
-import com.bz.librarysystem.entity.LoanRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,9 +24,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,9 +43,13 @@ import java.util.UUID;
 @CrossOrigin(origins = "*")
 public class LibraryController {
     private final LibraryService libraryService;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
 
-    public LibraryController(LibraryService libraryService) {
+    public LibraryController(LibraryService libraryService, ObjectMapper objectMapper, CatalogVersion catalogVersion) {
         this.libraryService = libraryService;
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
     }
 
     @Operation(
@@ -48,6 +67,21 @@ public class LibraryController {
         return ResponseEntity.ok(libraryService.registerBook(book));
     }
 
+    @Operation(
+            summary = "Register a batch of books",
+            description = "Adds many books in one transaction. Each distinct ISBN is validated once per batch " +
+                    "and the result of every item is reported separately."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item status"),
+            @ApiResponse(responseCode = "400", description = "Batch is missing or too large")
+    })
+    @PostMapping("/books/batch")
+    public ResponseEntity<List<BookRegistrationResultDto>> registerBooks(
+            @Parameter(description = "Books to register") @RequestBody List<BookDto> books) {
+        return ResponseEntity.ok(libraryService.registerBooks(books));
+    }
+
     @Operation(
             summary = "Register a new borrower",
             description = "Registers a new borrower in the library system. Email must be unique."
@@ -69,47 +103,288 @@ public class LibraryController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Book borrowed successfully",
-                    content = @Content(schema = @Schema(implementation = LoanRecord.class))),
+                    content = @Content(schema = @Schema(implementation = LoanDto.class))),
             @ApiResponse(responseCode = "404", description = "Book or borrower not found"),
             @ApiResponse(responseCode = "400", description = "Book is already borrowed")
     })
     @PostMapping("/books/{bookId}/borrow/{borrowerId}")
-    public ResponseEntity<LoanRecord> borrowBook(
+    public ResponseEntity<LoanDto> borrowBook(
             @Parameter(description = "ID of the book to borrow") @PathVariable UUID bookId,
             @Parameter(description = "ID of the borrower") @PathVariable UUID borrowerId) {
         return ResponseEntity.ok(libraryService.borrowBook(bookId, borrowerId));
     }
 
+    @Operation(
+            summary = "Borrow any copy of an ISBN",
+            description = "Claims whichever copy of the ISBN is free in one call. Concurrent requests for the same " +
+                    "ISBN each get a different copy until none is left."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "A copy was borrowed",
+                    content = @Content(schema = @Schema(implementation = LoanDto.class))),
+            @ApiResponse(responseCode = "400", description = "ISBN or borrower not found, or every copy is borrowed")
+    })
+    @PostMapping("/isbn/{isbn}/borrow/{borrowerId}")
+    public ResponseEntity<LoanDto> borrowAnyCopy(
+            @Parameter(description = "ISBN of the book to borrow") @PathVariable String isbn,
+            @Parameter(description = "ID of the borrower") @PathVariable UUID borrowerId) {
+        return ResponseEntity.ok(libraryService.borrowAnyCopy(isbn, borrowerId));
+    }
+
     @Operation(
             summary = "Return a book",
             description = "Records a borrowed book being returned to the library."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Book returned successfully",
-                    content = @Content(schema = @Schema(implementation = LoanRecord.class))),
+                    content = @Content(schema = @Schema(implementation = LoanDto.class))),
             @ApiResponse(responseCode = "404", description = "No active loan found for this book")
     })
     @PostMapping("/books/{bookId}/return")
-    public ResponseEntity<LoanRecord> returnBook(
+    public ResponseEntity<LoanDto> returnBook(
             @Parameter(description = "ID of the book to return") @PathVariable UUID bookId) {
         return ResponseEntity.ok(libraryService.returnBook(bookId));
     }
 
+    @Operation(
+            summary = "Borrow a batch of books",
+            description = "Lends several books to one borrower in one transaction and reports the result of every " +
+                    "item. With allOrNothing, a single unavailable book rejects the whole batch."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item status"),
+            @ApiResponse(responseCode = "400", description = "Borrower not found, batch missing or too large, " +
+                    "or an item rejected in allOrNothing mode")
+    })
+    @PostMapping("/books/borrow/{borrowerId}")
+    public ResponseEntity<List<LoanResultDto>> borrowBooks(
+            @Parameter(description = "ID of the borrower") @PathVariable UUID borrowerId,
+            @Parameter(description = "IDs of the books to borrow") @RequestBody List<UUID> bookIds,
+            @Parameter(description = "Reject the whole batch if any book cannot be borrowed")
+            @RequestParam(defaultValue = "false") boolean allOrNothing) {
+        return ResponseEntity.ok(libraryService.borrowBooks(borrowerId, bookIds, allOrNothing));
+    }
+
+    @Operation(
+            summary = "Return a batch of books",
+            description = "Returns several books in one transaction and reports the result of every item. " +
+                    "With allOrNothing, a single book without an active loan rejects the whole batch."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item status"),
+            @ApiResponse(responseCode = "400", description = "Batch missing or too large, " +
+                    "or an item rejected in allOrNothing mode")
+    })
+    @PostMapping("/books/return")
+    public ResponseEntity<List<LoanResultDto>> returnBooks(
+            @Parameter(description = "IDs of the books to return") @RequestBody List<UUID> bookIds,
+            @Parameter(description = "Reject the whole batch if any book cannot be returned")
+            @RequestParam(defaultValue = "false") boolean allOrNothing) {
+        return ResponseEntity.ok(libraryService.returnBooks(bookIds, allOrNothing));
+    }
+
+    @Operation(
+            summary = "Get a borrower's loan history",
+            description = "Retrieves the loans of a borrower, newest first, using keyset pagination. Pass the " +
+                    "returned nextCursor to fetch the following page; it is null on the last page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of loans retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Borrower not found, invalid cursor or page size")
+    })
+    @GetMapping("/borrowers/{borrowerId}/loans")
+    public ResponseEntity<LoanPageDto> getBorrowerLoans(
+            @Parameter(description = "ID of the borrower") @PathVariable UUID borrowerId,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 500 (default 100)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(libraryService.getBorrowerLoans(borrowerId, cursor, limit));
+    }
+
+    @Operation(
+            summary = "Get a book's loan history",
+            description = "Retrieves the loans of one copy, newest first, using keyset pagination. Pass the " +
+                    "returned nextCursor to fetch the following page; it is null on the last page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of loans retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Book not found, invalid cursor or page size")
+    })
+    @GetMapping("/books/{bookId}/loans")
+    public ResponseEntity<LoanPageDto> getBookLoans(
+            @Parameter(description = "ID of the book") @PathVariable UUID bookId,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 500 (default 100)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(libraryService.getBookLoans(bookId, cursor, limit));
+    }
+
+    @Operation(
+            summary = "Get overdue loans",
+            description = "Retrieves the open loans past their due date, longest overdue first, using keyset " +
+                    "pagination. Pass the returned nextCursor to fetch the following page; it is null on the last page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of overdue loans retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    @GetMapping("/loans/overdue")
+    public ResponseEntity<LoanPageDto> getOverdueLoans(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 500 (default 100)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(libraryService.getOverdueLoans(cursor, limit));
+    }
+
     @Operation(
             summary = "Get all books",
-            description = "Retrieves a list of all books in the library system."
+            description = "Retrieves a list of all books in the library system. Send the returned ETag in " +
+                    "If-None-Match to get 304 Not Modified while the catalog is unchanged."
     )
-    @ApiResponse(responseCode = "200", description = "List of books retrieved successfully",
-            content = @Content(schema = @Schema(implementation = Book.class)))
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "List of books retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag was issued")
+    })
     @GetMapping("/books")
-    public ResponseEntity<List<BookDto>> getAllBooks() {
-        return ResponseEntity.ok(libraryService.getAllBooks());
+    public ResponseEntity<List<BookDto>> getAllBooks(WebRequest request) {
+        // Read before the books: a change committed in between then yields a new tag on the next poll. No tag at all
+        // while a change made here has not moved the counter yet
+        String etag = catalogVersion.etag("books");
+        if (etag != null && request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(libraryService.getAllBooks());
+    }
+
+    @Operation(
+            summary = "Get a book",
+            description = "Retrieves a single book by its id. Its ETag follows the copy's version, so " +
+                    "If-None-Match gets 304 Not Modified until the copy is borrowed or returned."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Book retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Book unchanged since the ETag was issued"),
+            @ApiResponse(responseCode = "400", description = "Book not found")
+    })
+    @GetMapping("/books/{bookId}")
+    public ResponseEntity<BookDto> getBook(
+            @Parameter(description = "ID of the book") @PathVariable UUID bookId, WebRequest request) {
+        BookDto book = libraryService.getBook(bookId);
+        // Every borrow and return bumps the copy's @Version, so it identifies the representation
+        String etag = "W/\"book-" + book.getId() + '-' + book.getVersion() + '"';
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(book);
+    }
+
+    @Operation(
+            summary = "Get the copies of an ISBN",
+            description = "Retrieves every copy registered under the given ISBN; empty if there are none."
+    )
+    @ApiResponse(responseCode = "200", description = "Copies retrieved successfully")
+    @GetMapping("/books/isbn/{isbn}")
+    public ResponseEntity<List<BookDto>> getBooksByIsbn(
+            @Parameter(description = "ISBN of the book") @PathVariable String isbn) {
+        return ResponseEntity.ok(libraryService.getBooksByIsbn(isbn));
+    }
+
+    @Operation(
+            summary = "Search books",
+            description = "Full-text search over title, author and ISBN, served from an in-memory index. Every word " +
+                    "must match, as a whole word, a word prefix or, failing both, a similar word; titles are ranked " +
+                    "by relevance."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching titles, best first"),
+            @ApiResponse(responseCode = "400", description = "Missing query or invalid limit")
+    })
+    @GetMapping("/books/search")
+    public ResponseEntity<List<BookSearchResultDto>> searchBooks(
+            @Parameter(description = "Words to search for") @RequestParam String q,
+            @Parameter(description = "Maximum results, 1 to 100 (default 20)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(libraryService.searchBooks(q, limit));
     }
 
+    @Operation(
+            summary = "Get a page of books",
+            description = "Retrieves books ordered by id using keyset pagination. Pass the returned nextCursor " +
+                    "to fetch the following page; it is null on the last page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    @GetMapping("/books/page")
+    public ResponseEntity<BookPageDto> getBooksPage(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 500 (default 100)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(libraryService.getBooksPage(cursor, limit));
+    }
 
+    @Operation(
+            summary = "Stream all books",
+            description = "Streams every book as newline-delimited JSON while it is read from the database, " +
+                    "so memory use does not depend on the catalog size."
+    )
+    @ApiResponse(responseCode = "200", description = "Books streamed successfully")
+    @GetMapping(value = "/books/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                libraryService.streamAllBooks(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Get book inventory",
+            description = "Retrieves copies grouped by ISBN with the total and available count of each, " +
+                    "optionally filtered by ISBN or author. Results are ordered by ISBN and paginated."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Inventory retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag was issued"),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size")
+    })
     @GetMapping("/books/inventory")
-    public ResponseEntity<List<BookInventoryDto>> getAllBooksInventory() {
-        return ResponseEntity.ok(libraryService.getBookInventory());
+    public ResponseEntity<List<BookInventoryDto>> getAllBooksInventory(
+            @Parameter(description = "Only this ISBN") @RequestParam(required = false) String isbn,
+            @Parameter(description = "Only books by this author") @RequestParam(required = false) String author,
+            @Parameter(description = "Zero-based page index") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, 1 to 500") @RequestParam(defaultValue = "100") int size,
+            WebRequest request) {
+        // One tag for every filter and page: a client only ever revalidates the URL it got the tag from
+        String etag = catalogVersion.etag("inventory");
+        if (etag != null && request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(libraryService.getBookInventory(isbn, author, page, size));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
     }
 
 }
@@ -0,0 +1,43 @@
+package com.bz.librarysystem.controller;
+
+import com.bz.librarysystem.events.LoanEventStream;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/library/events")
+@Tag(name = "Loan Events", description = "Push stream of borrow and return events")
+@CrossOrigin(origins = "*")
+public class LoanEventController {
+
+    private final LoanEventStream loanEventStream;
+
+    public LoanEventController(LoanEventStream loanEventStream) {
+        this.loanEventStream = loanEventStream;
+    }
+
+    @Operation(
+            summary = "Stream loan events",
+            description = "Server-Sent Events stream of borrowed and returned events. Each event's id is its offset: " +
+                    "reconnect with the Last-Event-ID header (browsers do it themselves) or the offset parameter to " +
+                    "resume after it. Without either the stream starts with the next event."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "400", description = "Negative offset")
+    })
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @Parameter(description = "Offset of the last event received")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @Parameter(description = "Offset to resume after when no Last-Event-ID header is sent")
+            @RequestParam(required = false) Long offset) {
+        return loanEventStream.subscribe(lastEventId != null ? lastEventId : offset);
+    }
+}
@@ -0,0 +1,84 @@
+package com.bz.librarysystem.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override of the read/write routing. A thread that has written reads from the primary for the rest of
+ * its request, so a request sees its own writes even when the replicas lag; {@link DataSourceRoutingFilter} clears
+ * the flag when the request ends. Outside a request (schedulers, import workers, async executors) the flag ends
+ * with the transaction that set it, so a pooled thread does not stay on the primary for good.
+ */
+public final class DataSourceRouting {
+
+    private enum Pin {
+        /** Set by {@link #onPrimary}, undone when its work returns. */
+        READS,
+        /** Set by a write or {@link #usePrimary()}, kept until the request or transaction ends. */
+        WRITES
+    }
+
+    private static final ThreadLocal<Pin> PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> IN_REQUEST = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Sends the rest of this thread's read-only transactions to the primary as well: until the request ends, or
+     * outside a request until the current transaction completes. Outside both it lasts until {@link #reset()}.
+     */
+    public static void usePrimary() {
+        if (PRIMARY.get() == Pin.WRITES) {
+            return;
+        }
+        PRIMARY.set(Pin.WRITES);
+        if (IN_REQUEST.get() == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PRIMARY.remove();
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs {@code work} with its read-only transactions on the primary, for reads that must not lag. A pin that
+     * {@code work} sets by writing outlives it.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Pin previous = PRIMARY.get();
+        if (previous == null) {
+            PRIMARY.set(Pin.READS);
+        }
+        try {
+            return work.get();
+        } finally {
+            if (previous == null && PRIMARY.get() == Pin.READS) {
+                PRIMARY.remove();
+            }
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY.get() != null;
+    }
+
+    /** Scopes the pins set on this thread to the request it is about to serve. */
+    static void beginRequest() {
+        PRIMARY.remove();
+        IN_REQUEST.set(Boolean.TRUE);
+    }
+
+    static void endRequest() {
+        reset();
+    }
+
+    public static void reset() {
+        PRIMARY.remove();
+        IN_REQUEST.remove();
+    }
+}
@@ -0,0 +1,30 @@
+package com.bz.librarysystem.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Scopes {@link DataSourceRouting#usePrimary()} to one request, so a write pins only the request that made it.
+ * Work the request hands to another thread, such as a streamed response, is outside it: a write there pins only
+ * its own transaction.
+ */
+@Component
+public class DataSourceRoutingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        DataSourceRouting.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRouting.endRequest();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.bz.librarysystem.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The read replicas behind {@link ReadWriteRoutingDataSource}, each with its own connection pool. A background
+ * check takes a replica out of rotation when it stops answering or, with a lag query configured, when it falls
+ * more than {@code library.datasource.max-replica-lag} behind the primary, and puts it back once it recovers.
+ */
+public class ReplicaPool implements MeterBinder, AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaPool.class);
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final boolean leastConnections;
+    private final Duration checkInterval;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ScheduledExecutorService checker;
+
+    /**
+     * @param template  the primary's pool settings; each replica copies them with its own url and a read-only flag
+     * @param selection {@code round-robin} or {@code least-connections}
+     * @param lagQuery  returns the replica's lag in seconds; blank leaves the lag unchecked
+     */
+    public ReplicaPool(HikariConfig template, List<String> urls, String selection,
+                       Duration checkInterval, Duration maxLag, String lagQuery) {
+        this.leastConnections = switch (selection) {
+            case "round-robin" -> false;
+            case "least-connections" -> true;
+            default -> throw new IllegalStateException("Unknown library.datasource.replica-selection: " + selection);
+        };
+        this.checkInterval = checkInterval;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            template.copyStateTo(config);
+            config.setPoolName("replica-" + replicas.size());
+            config.setJdbcUrl(url.trim());
+            config.setReadOnly(true);
+            // A replica that is down at startup only stays out of rotation
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(config.getPoolName(), new HikariDataSource(config)));
+        }
+    }
+
+    // The first check runs before any request, so reads never go to a replica that was never reachable
+    @PostConstruct
+    public void start() {
+        checkAll();
+        checker = Executors.newSingleThreadScheduledExecutor(daemonThreads());
+        checker.scheduleWithFixedDelay(this::checkAll, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * A healthy replica in turn or the one with the fewest connections in use, or {@code null} if none is healthy.
+     */
+    public Replica select() {
+        int size = replicas.size();
+        Replica selected = null;
+        if (leastConnections) {
+            int fewest = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                int active = replica.activeConnections();
+                if (replica.healthy && active < fewest) {
+                    selected = replica;
+                    fewest = active;
+                }
+            }
+        } else {
+            int start = next.getAndIncrement();
+            for (int i = 0; i < size && selected == null; i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, size));
+                selected = replica.healthy ? replica : null;
+            }
+        }
+        if (selected != null) {
+            selected.reads.increment();
+        }
+        return selected;
+    }
+
+    /**
+     * Takes a replica out of rotation until the next successful check, after a connection to it failed.
+     */
+    void markDown(DataSource dataSource, SQLException cause) {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() == dataSource) {
+                setHealthy(replica, false, cause.getMessage());
+            }
+        }
+    }
+
+    void checkAll() {
+        for (Replica replica : replicas) {
+            try {
+                check(replica);
+            } catch (RuntimeException e) {
+                logger.warn("Could not check replica {}", replica.name(), e);
+            }
+        }
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource().getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                setHealthy(replica, false, "connection is not valid");
+                return;
+            }
+            if (lagQuery.isBlank()) {
+                setHealthy(replica, true, null);
+                return;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                replica.lagMillis = result.next() ? Math.round(result.getDouble(1) * 1000) : 0;
+            }
+            setHealthy(replica, replica.lagMillis <= maxLagMillis, "lagging " + replica.lagMillis + " ms");
+        } catch (SQLException e) {
+            setHealthy(replica, false, e.getMessage());
+        }
+    }
+
+    private void setHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy == healthy) {
+            return;
+        }
+        replica.healthy = healthy;
+        if (healthy) {
+            logger.info("Replica {} is back in rotation", replica.name());
+        } else {
+            logger.warn("Replica {} taken out of rotation: {}", replica.name(), reason);
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-health-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("library.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .description("Whether the replica is in rotation for read-only transactions")
+                    .register(registry);
+            TimeGauge.builder("library.datasource.replica.lag", replica, TimeUnit.MILLISECONDS, r -> r.lagMillis)
+                    .tag("replica", replica.name())
+                    .description("Replication lag at the last check")
+                    .register(registry);
+            FunctionCounter.builder("library.datasource.replica.reads", replica.reads, LongAdder::sum)
+                    .tag("replica", replica.name())
+                    .description("Read-only transactions routed to the replica")
+                    .register(registry);
+        }
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public HikariDataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean healthy() {
+            return healthy;
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
@@ -7,5 +7,7 @@ public class BookInventoryDto {
     private final String isbn;
     private final String title;
     private final String author;
-    private final int numberOfCopies;
-}
\ No newline at end of file
+    private final long numberOfCopies;
+    // Copies that are not currently borrowed
+    private final long available;
+}
@@ -0,0 +1,16 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPageDto {
+    private List<BookDto> items;
+    // Opaque token for the next page, null when this is the last page
+    private String nextCursor;
+}
@@ -0,0 +1,27 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookRegistrationResultDto {
+
+    public enum Status { REGISTERED, REJECTED }
+
+    // Position of the item in the submitted batch
+    private int index;
+    private Status status;
+    private BookDto book;
+    private String error;
+
+    public static BookRegistrationResultDto registered(int index, BookDto book) {
+        return new BookRegistrationResultDto(index, Status.REGISTERED, book, null);
+    }
+
+    public static BookRegistrationResultDto rejected(int index, BookDto book, String error) {
+        return new BookRegistrationResultDto(index, Status.REJECTED, book, error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchResultDto {
+    private String isbn;
+    private String title;
+    private String author;
+    // Relevance, higher is better; only comparable within one result list
+    private double score;
+}
@@ -0,0 +1,27 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorrowerRegistrationResultDto {
+
+    public enum Status { REGISTERED, REJECTED }
+
+    // Position of the item in the submitted batch
+    private int index;
+    private Status status;
+    private BorrowerDto borrower;
+    private String error;
+
+    public static BorrowerRegistrationResultDto registered(int index, BorrowerDto borrower) {
+        return new BorrowerRegistrationResultDto(index, Status.REGISTERED, borrower, null);
+    }
+
+    public static BorrowerRegistrationResultDto rejected(int index, BorrowerDto borrower, String error) {
+        return new BorrowerRegistrationResultDto(index, Status.REJECTED, borrower, error);
+    }
+}
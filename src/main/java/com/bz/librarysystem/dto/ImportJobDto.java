@@ -0,0 +1,29 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDto {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private UUID id;
+    // "books" or "borrowers"
+    private String target;
+    private String format;
+    private Status status;
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    // Why a FAILED job stopped; rows of the batches written before that stay imported
+    private String error;
+}
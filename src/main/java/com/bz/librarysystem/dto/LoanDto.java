@@ -0,0 +1,22 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanDto {
+    private UUID loanId;
+    private UUID bookId;
+    private String isbn;
+    private UUID borrowerId;
+    private LocalDateTime borrowedAt;
+    private LocalDateTime dueAt;
+    // Null while the book is still out
+    private LocalDateTime returnedAt;
+}
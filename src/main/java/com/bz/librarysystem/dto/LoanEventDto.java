@@ -0,0 +1,22 @@
+package com.bz.librarysystem.dto;
+
+import com.bz.librarysystem.entity.LoanEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanEventDto {
+    // Position in the event stream, also sent as the SSE event id to resume from
+    private long offset;
+    private LoanEvent.Type type;
+    private UUID bookId;
+    private String isbn;
+    private UUID borrowerId;
+    private LocalDateTime occurredAt;
+}
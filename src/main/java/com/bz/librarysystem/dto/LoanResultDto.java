@@ -0,0 +1,34 @@
+package com.bz.librarysystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanResultDto {
+
+    public enum Status { BORROWED, RETURNED, REJECTED }
+
+    // Position of the item in the submitted batch
+    private int index;
+    private UUID bookId;
+    private Status status;
+    private LoanDto loan;
+    private String error;
+
+    public static LoanResultDto borrowed(int index, LoanDto loan) {
+        return new LoanResultDto(index, loan.getBookId(), Status.BORROWED, loan, null);
+    }
+
+    public static LoanResultDto returned(int index, LoanDto loan) {
+        return new LoanResultDto(index, loan.getBookId(), Status.RETURNED, loan, null);
+    }
+
+    public static LoanResultDto rejected(int index, UUID bookId, String error) {
+        return new LoanResultDto(index, bookId, Status.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,41 @@
+package com.bz.librarysystem.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A returned loan moved from loans to loan_history by the archiver. Rows are inserted in bulk by
+ * ArchivedLoanRepository and only read through this entity; the ids are plain columns, not associations.
+ */
+@Data
+@Entity
+@Table(name = "loan_history")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedLoan {
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID bookId;
+
+    @Column(nullable = false)
+    private UUID borrowerId;
+
+    @Column(nullable = false)
+    private LocalDateTime borrowedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime dueAt;
+
+    @Column(nullable = false)
+    private LocalDateTime returnedAt;
+}
@@ -1,11 +1,14 @@
 package com.bz.librarysystem.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.*;
 import java.util.UUID;
 
 import lombok.Data;
 
+/**
+ * One physical copy. ISBN, title and author live on the shared {@link BookTitle}.
+ */
 @Data
 @Entity
 @Table(name = "books")
@@ -14,18 +17,26 @@ public class Book {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @NotBlank(message = "ISBN is required")
-    private String isbn;
-
-    @NotBlank(message = "Title is required")
-    private String title;
-
-    @NotBlank(message = "Author is required")
-    private String author;
+    @JsonIgnore
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "isbn", nullable = false)
+    private BookTitle bookTitle;
 
     @Version
     private Long version;
 
     @Column(name = "is_borrowed")
     private boolean borrowed = false;
+
+    public String getIsbn() {
+        return bookTitle == null ? null : bookTitle.getIsbn();
+    }
+
+    public String getTitle() {
+        return bookTitle == null ? null : bookTitle.getTitle();
+    }
+
+    public String getAuthor() {
+        return bookTitle == null ? null : bookTitle.getAuthor();
+    }
 }
@@ -0,0 +1,41 @@
+package com.bz.librarysystem.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+/**
+ * The bibliographic record shared by every copy of an ISBN. These are the read-mostly fields of a book, so they
+ * live in the second-level cache; the copy's own row changes with every borrow and return and is not cached.
+ */
+@Data
+@Entity
+@Table(name = "book_titles")
+@NoArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book-titles")
+public class BookTitle {
+    @Id
+    @NotBlank(message = "ISBN is required")
+    private String isbn;
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    @NotBlank(message = "Author is required")
+    private String author;
+
+    // Also tells Spring Data that a title with an assigned ISBN but no version is new, so save() persists it
+    @Version
+    private Long version;
+
+    public BookTitle(String isbn, String title, String author) {
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+    }
+}
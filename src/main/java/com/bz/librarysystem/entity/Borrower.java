@@ -5,10 +5,18 @@ import jakarta.validation.constraints.*;
 import java.util.UUID;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+/**
+ * Borrowers are only ever inserted, so they are held in the second-level cache and a borrow does not read them
+ * from the database.
+ */
 @Data
 @Entity
 @Table(name = "borrowers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "borrowers")
 public class Borrower {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
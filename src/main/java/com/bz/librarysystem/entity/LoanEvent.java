@@ -0,0 +1,45 @@
+package com.bz.librarysystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox row written in the same transaction as the loan change it describes. It keeps plain ids rather
+ * than associations, so events outlive the rows they mention.
+ */
+@Data
+@Entity
+@Table(name = "loan_events")
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanEvent {
+
+    public enum Type { BORROWED, RETURNED, OVERDUE }
+
+    // The stream offset. An identity, not a pooled sequence: ids are handed out one at a time in insertion
+    // order, so a hole in the committed ids can only be an open or rolled-back transaction
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(nullable = false)
+    private UUID bookId;
+
+    @Column(nullable = false)
+    private String isbn;
+
+    @Column(nullable = false)
+    private UUID borrowerId;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+}
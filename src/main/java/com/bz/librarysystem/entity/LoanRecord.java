@@ -19,16 +19,21 @@ public class LoanRecord {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    // Lazy, so a loan read for its ids or timestamps does not join the copy and the borrower
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "borrower_id", nullable = false)
     private Borrower borrower;
 
     @Column(nullable = false)
     private LocalDateTime borrowedAt;
 
+    // Set from LoanPolicy when the loan is opened
+    @Column(nullable = false)
+    private LocalDateTime dueAt;
+
     private LocalDateTime returnedAt;
 }
@@ -0,0 +1,31 @@
+package com.bz.librarysystem.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Where an incremental scan left off: the (timestamp, id) keyset of the last row it processed.
+ */
+@Data
+@Entity
+@Table(name = "scan_watermarks")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanWatermark {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lastAt;
+
+    @Column(nullable = false)
+    private UUID lastId;
+}
@@ -0,0 +1,117 @@
+package com.bz.librarysystem.events;
+
+import com.bz.librarysystem.dto.LoanEventDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent published events, in offset order. Adding to a full buffer drops the oldest event and
+ * raises the floor: subscribers behind the floor read the outbox table instead.
+ */
+class LoanEventBuffer {
+
+    private final LoanEventDto[] events;
+    private int head;
+    private int size;
+    // Every published event with an offset above the floor and up to the watermark is held
+    private long floor;
+    private volatile long watermark;
+
+    LoanEventBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.events = new LoanEventDto[capacity];
+    }
+
+    synchronized void startAt(long offset) {
+        head = 0;
+        size = 0;
+        floor = offset;
+        watermark = offset;
+    }
+
+    synchronized void append(LoanEventDto event) {
+        if (size == events.length) {
+            dropOldest();
+        }
+        events[(head + size) % events.length] = event;
+        size++;
+        watermark = event.getOffset();
+    }
+
+    /**
+     * Adds an event below the watermark, one published after its offset was skipped. An offset at or below the
+     * floor is left to the outbox table.
+     */
+    synchronized void insert(LoanEventDto event) {
+        if (event.getOffset() <= floor) {
+            return;
+        }
+        if (size == events.length) {
+            if (event.getOffset() < get(0).getOffset()) {
+                // It would be the oldest, so it is dropped in its place
+                floor = event.getOffset();
+                return;
+            }
+            dropOldest();
+        }
+        int index = indexAfter(event.getOffset());
+        for (int i = size; i > index; i--) {
+            events[(head + i) % events.length] = get(i - 1);
+        }
+        events[(head + index) % events.length] = event;
+        size++;
+    }
+
+    /**
+     * Up to {@code max} events after {@code offset}, oldest first, or null when some of them were dropped.
+     */
+    synchronized List<LoanEventDto> after(long offset, int max) {
+        if (offset < floor) {
+            return null;
+        }
+        int low = indexAfter(offset);
+        int end = Math.min(size, low + max);
+        List<LoanEventDto> result = new ArrayList<>(end - low);
+        for (int i = low; i < end; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    synchronized long floor() {
+        return floor;
+    }
+
+    long watermark() {
+        return watermark;
+    }
+
+    // Offsets increase along the buffer, so the first event after the offset is found by bisection
+    private int indexAfter(long offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (get(middle).getOffset() <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void dropOldest() {
+        floor = events[head].getOffset();
+        events[head] = null;
+        head = (head + 1) % events.length;
+        size--;
+    }
+
+    private LoanEventDto get(int index) {
+        return events[(head + index) % events.length];
+    }
+}
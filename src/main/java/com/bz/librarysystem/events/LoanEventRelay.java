@@ -0,0 +1,256 @@
+package com.bz.librarysystem.events;
+
+import com.bz.librarysystem.datasource.DataSourceRouting;
+import com.bz.librarysystem.dto.LoanEventDto;
+import com.bz.librarysystem.entity.LoanEvent;
+import com.bz.librarysystem.mapper.LoanMapper;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tails the loan_events outbox in id order on a background thread and publishes committed events to the
+ * {@link LoanEventStream}. Every instance tails the whole table, so its subscribers see every event whichever
+ * instance wrote it.
+ * <p>
+ * Ids are taken at insert and become visible at commit, so a later id can commit first. A hole after the last
+ * published id therefore holds the stream back until it fills or {@code library.events.gap-timeout} passes;
+ * then the stream moves on. A skipped id is still looked up every gap timeout for
+ * {@code library.events.late-window}, and an event that commits that late is published out of order (see
+ * {@link LoanEventStream#publishLate}). The ids missing just below the newest one at startup are watched the same
+ * way, since their transactions may still be in flight.
+ */
+@Component
+public class LoanEventRelay implements MeterBinder {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+    // A hole is about as wide as the transactions in flight; past this many ids it is a sequence gap instead
+    private static final int MAX_LATE_IDS = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(LoanEventRelay.class);
+
+    private final LoanEventRepository loanEventRepository;
+    private final LoanEventStream loanEventStream;
+    private final long pollIntervalNanos;
+    private final long gapTimeoutNanos;
+    private final Duration lateWindow;
+    private final long heartbeatIntervalNanos;
+    private final Duration retention;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder late = new LongAdder();
+
+    // Touched only by the relay thread, apart from the start
+    private long position;
+    private boolean holeOpen;
+    private long holeSeenAt;
+    // Skipped ids that may still commit, each with the time it is given up at
+    private final TreeMap<Long, Long> lateIds = new TreeMap<>();
+    private long nextLateCheck;
+
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public LoanEventRelay(LoanEventRepository loanEventRepository,
+                          LoanEventStream loanEventStream,
+                          @Value("${library.events.poll-interval:100ms}") Duration pollInterval,
+                          @Value("${library.events.gap-timeout:10s}") Duration gapTimeout,
+                          @Value("${library.events.late-window:5m}") Duration lateWindow,
+                          @Value("${library.events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                          @Value("${library.events.retention:7d}") Duration retention) {
+        this.loanEventRepository = loanEventRepository;
+        this.loanEventStream = loanEventStream;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.lateWindow = lateWindow;
+        this.nextLateCheck = System.nanoTime();
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.retention = retention;
+    }
+
+    // Live subscribers start with the events committed after startup; older ones are replayed from the table.
+    // The outbox is always read on the primary: a lagging replica would stretch every hole into a gap timeout.
+    @PostConstruct
+    public void start() {
+        position = DataSourceRouting.onPrimary(() -> {
+            long newest = loanEventRepository.findMaxId();
+            watchInFlight(newest);
+            return newest;
+        });
+        loanEventStream.startAt(position);
+        running = true;
+        relayThread = new Thread(this::relayLoop, "loan-event-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(relayThread);
+        relayThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void relayLoop() {
+        DataSourceRouting.usePrimary();
+        long nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos;
+        long nextPurge = System.nanoTime();
+        while (running) {
+            int count = 0;
+            try {
+                count = relay();
+                long now = System.nanoTime();
+                if (now - nextHeartbeat >= 0) {
+                    loanEventStream.heartbeat();
+                    nextHeartbeat = now + heartbeatIntervalNanos;
+                }
+                if (now - nextPurge >= 0) {
+                    purge();
+                    nextPurge = now + PURGE_INTERVAL_NANOS;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not relay loan events, retrying", e);
+            }
+            if (count < BATCH_SIZE) {
+                LockSupport.parkNanos(pollIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Publishes the committed events after the current position, stopping at a hole that may still fill.
+     */
+    int relay() {
+        int count = relayInOrder();
+        return count + relayLate();
+    }
+
+    private int relayInOrder() {
+        List<LoanEvent> events = loanEventRepository.findAfter(position, Limit.of(BATCH_SIZE));
+        List<LoanEventDto> ready = new ArrayList<>(events.size());
+        for (LoanEvent event : events) {
+            long missing = event.getId() - position - 1;
+            if (missing > 0 && !holeExpired()) {
+                break;
+            }
+            if (missing > 0) {
+                skipped.add(missing);
+                logger.warn("Skipped loan event ids {} to {} after waiting for them to commit",
+                        position + 1, event.getId() - 1);
+                watch(position + 1, event.getId() - 1);
+            }
+            holeOpen = false;
+            position = event.getId();
+            ready.add(LoanMapper.toDto(event));
+        }
+        if (!ready.isEmpty()) {
+            loanEventStream.publish(ready);
+            published.add(ready.size());
+        }
+        return ready.size();
+    }
+
+    /**
+     * Publishes the watched ids that have committed since, and gives up on those older than the late window.
+     */
+    private int relayLate() {
+        long now = System.nanoTime();
+        if (lateIds.isEmpty() || now - nextLateCheck < 0) {
+            return 0;
+        }
+        nextLateCheck = now + gapTimeoutNanos;
+        lateIds.values().removeIf(givenUpAt -> now - givenUpAt >= 0);
+        List<Long> ids = new ArrayList<>(lateIds.keySet());
+        List<LoanEventDto> found = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            for (LoanEvent event : loanEventRepository.findAllById(
+                    ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE)))) {
+                lateIds.remove(event.getId());
+                found.add(LoanMapper.toDto(event));
+            }
+        }
+        if (found.isEmpty()) {
+            return 0;
+        }
+        found.sort(Comparator.comparingLong(LoanEventDto::getOffset));
+        logger.info("Publishing {} loan events that committed after their ids were skipped", found.size());
+        loanEventStream.publishLate(found);
+        published.add(found.size());
+        late.add(found.size());
+        return found.size();
+    }
+
+    private void watchInFlight(long newest) {
+        long from = loanEventRepository.findMinIdSince(LocalDateTime.now().minus(lateWindow));
+        if (from == 0) {
+            return;
+        }
+        long expected = from;
+        for (long id : loanEventRepository.findIdsBetween(from, newest)) {
+            if (id > expected) {
+                watch(expected, id - 1);
+            }
+            expected = id + 1;
+        }
+    }
+
+    private void watch(long from, long to) {
+        long givenUpAt = System.nanoTime() + lateWindow.toNanos();
+        for (long id = from; id <= to && lateIds.size() < MAX_LATE_IDS; id++) {
+            lateIds.put(id, givenUpAt);
+        }
+    }
+
+    private boolean holeExpired() {
+        long now = System.nanoTime();
+        if (!holeOpen) {
+            holeOpen = true;
+            holeSeenAt = now;
+        }
+        return now - holeSeenAt >= gapTimeoutNanos;
+    }
+
+    private void purge() {
+        int purged = loanEventRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            logger.info("Purged {} loan events older than {}", purged, retention);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.events.published", published, LongAdder::sum)
+                .description("Loan events published to the event stream")
+                .register(registry);
+        FunctionCounter.builder("library.events.skipped", skipped, LongAdder::sum)
+                .description("Loan event ids skipped after waiting gap-timeout for them to commit")
+                .register(registry);
+        FunctionCounter.builder("library.events.late", late, LongAdder::sum)
+                .description("Loan events published out of order, after their ids were skipped")
+                .register(registry);
+        Gauge.builder("library.events.position", loanEventStream, LoanEventStream::watermark)
+                .description("Offset of the last published loan event")
+                .register(registry);
+    }
+}
@@ -0,0 +1,229 @@
+package com.bz.librarysystem.events;
+
+import com.bz.librarysystem.datasource.DataSourceRouting;
+import com.bz.librarysystem.dto.LoanEventDto;
+import com.bz.librarysystem.mapper.LoanMapper;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans the events published by {@link LoanEventRelay} out to SSE subscribers. Recent events are served from
+ * a bounded in-memory buffer; a subscriber resuming from an older offset catches up from the outbox table
+ * first. Each subscriber is drained by at most one sender thread at a time, so a slow client holds up only
+ * itself and one sender.
+ */
+@Component
+public class LoanEventStream implements MeterBinder {
+
+    private static final int SEND_BATCH_SIZE = 256;
+    // Offsets a subscriber passed over, kept in case their events commit late
+    private static final int MAX_HOLES = 1024;
+
+    private final LoanEventRepository loanEventRepository;
+    private final LoanEventBuffer buffer;
+    private final Duration timeout;
+    private final ExecutorService sender;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public LoanEventStream(LoanEventRepository loanEventRepository,
+                           @Value("${library.events.buffer-capacity:4096}") int bufferCapacity,
+                           @Value("${library.events.sender-threads:4}") int senderThreads,
+                           @Value("${library.events.timeout:30m}") Duration timeout) {
+        this.loanEventRepository = loanEventRepository;
+        this.buffer = new LoanEventBuffer(bufferCapacity);
+        this.timeout = timeout;
+        this.sender = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("loan-event-sender-"));
+    }
+
+    /**
+     * Streams the events after {@code offset}, or only new events when it is null.
+     */
+    public SseEmitter subscribe(Long offset) {
+        if (offset != null && offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, offset == null ? buffer.watermark() : offset);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Sends before the emitter is handed to the container are buffered by the emitter
+        subscriber.signal();
+        return emitter;
+    }
+
+    void startAt(long offset) {
+        buffer.startAt(offset);
+    }
+
+    void publish(List<LoanEventDto> events) {
+        events.forEach(buffer::append);
+        subscribers.forEach(Subscriber::signal);
+    }
+
+    /**
+     * Publishes events whose offsets the relay skipped before they committed. A subscriber still behind such an
+     * offset gets the event in order; one that passed over it gets it out of order and without an SSE id, so a
+     * reconnect still resumes after the newest event it got in order.
+     */
+    void publishLate(List<LoanEventDto> events) {
+        // Into the buffer first: a subscriber that is not sent one out of order must find it there
+        events.forEach(buffer::insert);
+        subscribers.forEach(subscriber -> {
+            subscriber.late.addAll(events);
+            subscriber.signal();
+        });
+    }
+
+    // A comment line keeps idle connections open through proxies and finds the clients that went away
+    void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            subscriber.signal();
+        });
+    }
+
+    long watermark() {
+        return buffer.watermark();
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.events.subscribers", subscribers, Set::size)
+                .description("Open loan event streams")
+                .register(registry);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Queue<LoanEventDto> late = new ConcurrentLinkedQueue<>();
+        // Touched only by the sender draining this subscriber
+        private final TreeSet<Long> holes = new TreeSet<>();
+        private volatile long position;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        private void signal() {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    deliver();
+                } catch (IOException | RuntimeException e) {
+                    // The client is gone; leaving the flag set keeps it from being scheduled again
+                    subscribers.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+                scheduled.set(false);
+                // A publish that found the flag still set relies on this check to be seen
+            } while (hasWork() && scheduled.compareAndSet(false, true));
+        }
+
+        private boolean hasWork() {
+            return heartbeatDue || buffer.watermark() > position || !late.isEmpty();
+        }
+
+        private void deliver() throws IOException {
+            while (true) {
+                List<LoanEventDto> events = buffer.after(position, SEND_BATCH_SIZE);
+                if (events == null) {
+                    events = replay();
+                }
+                if (events.isEmpty()) {
+                    break;
+                }
+                for (LoanEventDto event : events) {
+                    passOver(position, event.getOffset());
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.getOffset()))
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                    position = event.getOffset();
+                }
+            }
+            // Above the position the buffer brings it in order; at or below, it came in order unless it was a hole
+            for (LoanEventDto event = late.poll(); event != null; event = late.poll()) {
+                if (holes.remove(event.getOffset())) {
+                    emitter.send(SseEmitter.event()
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+            }
+            if (heartbeatDue) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        }
+
+        private void passOver(long from, long to) {
+            if (to - from - 1 > MAX_HOLES) {
+                return;
+            }
+            for (long offset = from + 1; offset < to; offset++) {
+                holes.add(offset);
+            }
+            while (holes.size() > MAX_HOLES) {
+                holes.pollFirst();
+            }
+        }
+
+        // Reads the outbox up to what the relay has published, never past a hole it is still waiting on
+        private List<LoanEventDto> replay() {
+            long floor = buffer.floor();
+            long watermark = buffer.watermark();
+            // On the primary: a replica may not have applied everything up to the watermark yet
+            List<LoanEventDto> events = DataSourceRouting.onPrimary(() -> loanEventRepository.findBetween(
+                    position, watermark, Limit.of(SEND_BATCH_SIZE))).stream().map(LoanMapper::toDto).toList();
+            if (events.isEmpty()) {
+                // Nothing left below the floor (purged or never committed), so the buffer takes over
+                position = Math.max(position, floor);
+                List<LoanEventDto> buffered = buffer.after(position, SEND_BATCH_SIZE);
+                return buffered == null ? List.of() : buffered;
+            }
+            return events;
+        }
+    }
+}
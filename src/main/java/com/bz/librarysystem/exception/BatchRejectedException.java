@@ -0,0 +1,7 @@
+package com.bz.librarysystem.exception;
+
+public class BatchRejectedException extends RuntimeException {
+    public BatchRejectedException(String message) {
+        super(message);
+    }
+}
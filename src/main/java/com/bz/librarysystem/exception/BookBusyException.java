@@ -0,0 +1,7 @@
+package com.bz.librarysystem.exception;
+
+public class BookBusyException extends RuntimeException {
+    public BookBusyException(String message) {
+        super(message);
+    }
+}
@@ -6,8 +6,13 @@ import org.springframework.http.HttpStatus;
 @RestControllerAdvice
 class GlobalExceptionHandler {
 
+    /** Names the exception class so clients and load tests can tell failures apart without parsing messages. */
+    static final String ERROR_TYPE_HEADER = "X-Error-Type";
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception e) {
-        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .header(ERROR_TYPE_HEADER, e.getClass().getSimpleName())
+                .body(e.getMessage());
     }
-}
\ No newline at end of file
+}
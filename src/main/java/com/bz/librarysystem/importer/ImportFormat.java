@@ -0,0 +1,33 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.exception.InvalidImportFileException;
+import org.springframework.http.MediaType;
+
+/**
+ * Upload formats, chosen by the request's content type.
+ */
+public enum ImportFormat {
+    /** RFC 4180 CSV with a header row naming the columns. */
+    CSV(MediaType.parseMediaType("text/csv")),
+    /** One JSON object per line. */
+    JSONL(MediaType.APPLICATION_NDJSON, MediaType.parseMediaType("application/jsonl"),
+            MediaType.parseMediaType("application/x-ndjson"));
+
+    private final MediaType[] mediaTypes;
+
+    ImportFormat(MediaType... mediaTypes) {
+        this.mediaTypes = mediaTypes;
+    }
+
+    public static ImportFormat of(MediaType contentType) {
+        for (ImportFormat format : values()) {
+            for (MediaType mediaType : format.mediaTypes) {
+                if (mediaType.equalsTypeAndSubtype(contentType)) {
+                    return format;
+                }
+            }
+        }
+        throw new InvalidImportFileException("Unsupported import content type " + contentType
+                + ", use text/csv or application/x-ndjson");
+    }
+}
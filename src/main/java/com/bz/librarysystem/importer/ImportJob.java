@@ -0,0 +1,92 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.dto.ImportJobDto;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import. Updated by the job thread, read by status requests.
+ */
+final class ImportJob {
+
+    private final UUID id = UUID.randomUUID();
+    private final String target;
+    private final ImportFormat format;
+    private final Path upload;
+    private final Path errors;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile ImportJobDto.Status status = ImportJobDto.Status.QUEUED;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    ImportJob(String target, ImportFormat format, Path directory) {
+        this.target = target;
+        this.format = format;
+        this.upload = directory.resolve(id + ".upload");
+        this.errors = directory.resolve(id + "-errors.csv");
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    ImportFormat format() {
+        return format;
+    }
+
+    Path upload() {
+        return upload;
+    }
+
+    Path errors() {
+        return errors;
+    }
+
+    LocalDateTime submittedAt() {
+        return submittedAt;
+    }
+
+    boolean finished() {
+        return finishedAt != null;
+    }
+
+    void started() {
+        status = ImportJobDto.Status.RUNNING;
+    }
+
+    void read(int rows) {
+        rowsRead.addAndGet(rows);
+    }
+
+    void imported(int rows) {
+        imported.addAndGet(rows);
+    }
+
+    void rejected(int rows) {
+        rejected.addAndGet(rows);
+    }
+
+    void completed() {
+        finishedAt = LocalDateTime.now();
+        status = ImportJobDto.Status.COMPLETED;
+    }
+
+    void failed(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = ImportJobDto.Status.FAILED;
+    }
+
+    ImportJobDto toDto() {
+        return new ImportJobDto(id, target, format.name(), status, rowsRead.get(), imported.get(), rejected.get(),
+                submittedAt, finishedAt, error);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.exception.InvalidImportFileException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an upload one record at a time. CSV records may span lines inside quoted fields; JSONL records are
+ * single lines. Blank lines are skipped. A record longer than {@link #MAX_RECORD_LENGTH} characters fails the
+ * file, so an unterminated quote cannot pull the rest of the upload into memory.
+ */
+final class ImportRowReader implements Closeable {
+
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final ImportFormat format;
+    private final List<String> header;
+
+    private long line = 1;
+    private int lookahead = NONE;
+    private InvalidImportFileException failure;
+
+    ImportRowReader(Reader reader, ImportFormat format) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        if (format == ImportFormat.CSV) {
+            SourceRow headerRow = next();
+            if (headerRow == null) {
+                throw new InvalidImportFileException("CSV upload is empty, expected a header row");
+            }
+            List<String> columns = new ArrayList<>();
+            for (String column : headerRow.fields()) {
+                columns.add(column.trim().toLowerCase());
+            }
+            this.header = List.copyOf(columns);
+        } else {
+            this.header = List.of();
+        }
+    }
+
+    /** Lower-cased CSV column names; empty for JSONL. */
+    List<String> header() {
+        return header;
+    }
+
+    /**
+     * Reads up to {@code max} records; an empty list means the upload is exhausted. Records read before a
+     * broken one are still returned, the failure is thrown by the following call.
+     */
+    List<SourceRow> next(int max) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        List<SourceRow> rows = new ArrayList<>(max);
+        try {
+            SourceRow row;
+            while (rows.size() < max && (row = next()) != null) {
+                rows.add(row);
+            }
+        } catch (InvalidImportFileException e) {
+            if (rows.isEmpty()) {
+                throw e;
+            }
+            failure = e;
+        }
+        return rows;
+    }
+
+    SourceRow next() throws IOException {
+        return format == ImportFormat.CSV ? nextCsv() : nextLine();
+    }
+
+    private SourceRow nextLine() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                line++;
+                if (!text.toString().isBlank()) {
+                    return new SourceRow(line - 1, text.toString(), null);
+                }
+                text.setLength(0);
+            } else if (c != '\r') {
+                append(text, c, line);
+            }
+        }
+        return text.toString().isBlank() ? null : new SourceRow(line, text.toString(), null);
+    }
+
+    private SourceRow nextCsv() throws IOException {
+        StringBuilder text = new StringBuilder();
+        StringBuilder field = new StringBuilder();
+        List<String> fields = new ArrayList<>();
+        long start = line;
+        boolean quoted = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                        append(text, '"', start);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                append(text, c, start);
+            } else if (c == '"') {
+                quoted = true;
+                append(text, c, start);
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                append(text, c, start);
+            } else if (c == '\n') {
+                line++;
+                if (text.isEmpty()) {
+                    start = line;
+                    continue;
+                }
+                fields.add(field.toString());
+                return new SourceRow(start, text.toString(), fields);
+            } else if (c != '\r') {
+                field.append((char) c);
+                append(text, c, start);
+            }
+        }
+        if (quoted) {
+            throw new InvalidImportFileException("Unterminated quoted field in the record starting at line " + start);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+        fields.add(field.toString());
+        return new SourceRow(start, text.toString(), fields);
+    }
+
+    private void append(StringBuilder text, int c, long start) {
+        if (text.length() >= MAX_RECORD_LENGTH) {
+            throw new InvalidImportFileException(String.format(
+                    "The record starting at line %d is longer than %d characters", start, MAX_RECORD_LENGTH));
+        }
+        text.append((char) c);
+    }
+
+    private int read() throws IOException {
+        if (lookahead != NONE) {
+            int c = lookahead;
+            lookahead = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (lookahead == NONE) {
+            lookahead = reader.read();
+        }
+        return lookahead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,337 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.BorrowerRegistrationResultDto;
+import com.bz.librarysystem.dto.ImportJobDto;
+import com.bz.librarysystem.exception.InvalidImportFileException;
+import com.bz.librarysystem.exception.ResourceNotFoundException;
+import com.bz.librarysystem.mapper.BookMapper;
+import com.bz.librarysystem.mapper.BorrowerMapper;
+import com.bz.librarysystem.service.LibraryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk import of books and borrowers from CSV or JSONL uploads. An upload is spooled to disk and imported
+ * by a background job: records are read in batches, each batch is parsed and validated on the validation
+ * pool, and validated batches are written in upload order through {@link LibraryService}, one transaction
+ * per batch. At most {@code library.import.max-batches-in-flight} batches sit between reading and writing,
+ * so reading stalls while the database catches up and memory use does not depend on the file size.
+ */
+@Service
+public class ImportService {
+
+    private static final String ERROR_FILE_HEADER = "line,error,record\n";
+
+    private final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final int retainedJobs;
+
+    private final ImportTarget<BookDto> books;
+    private final ImportTarget<BorrowerDto> borrowers;
+
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+    // One import at a time, so concurrent uploads queue instead of competing for connections
+    private final ExecutorService jobExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("import-job-"));
+    private final ExecutorService validationExecutor;
+
+    public ImportService(LibraryService libraryService,
+                         ObjectMapper objectMapper,
+                         Validator validator,
+                         @Value("${library.import.directory:${java.io.tmpdir}/bzlibrary-import}") String directory,
+                         @Value("${library.import.batch-size:500}") int batchSize,
+                         @Value("${library.import.max-batches-in-flight:4}") int maxBatchesInFlight,
+                         @Value("${library.import.validation-threads:4}") int validationThreads,
+                         @Value("${library.import.retained-jobs:100}") int retainedJobs) {
+        if (batchSize < 1 || maxBatchesInFlight < 1 || validationThreads < 1) {
+            throw new IllegalArgumentException(
+                    "library.import batch-size, max-batches-in-flight and validation-threads must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.directory = Path.of(directory);
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.retainedJobs = retainedJobs;
+        this.validationExecutor = Executors.newFixedThreadPool(validationThreads,
+                new CustomizableThreadFactory("import-validate-"));
+
+        // ISBN conflicts and duplicate emails are resolved by the batch registrations, one lookup per batch
+        this.books = new ImportTarget<>("books", BookDto.class, List.of("isbn", "title", "author"),
+                BookMapper::toTitle,
+                batch -> libraryService.registerBooks(batch).stream()
+                        .map(BookRegistrationResultDto::getError)
+                        .toList());
+        this.borrowers = new ImportTarget<>("borrowers", BorrowerDto.class, List.of("name", "email"),
+                BorrowerMapper::toEntity,
+                batch -> libraryService.registerBorrowers(batch).stream()
+                        .map(BorrowerRegistrationResultDto::getError)
+                        .toList());
+    }
+
+    public ImportJobDto importBooks(ImportFormat format, InputStream upload) throws IOException {
+        return submit(books, format, upload);
+    }
+
+    public ImportJobDto importBorrowers(ImportFormat format, InputStream upload) throws IOException {
+        return submit(borrowers, format, upload);
+    }
+
+    public ImportJobDto getJob(UUID jobId) {
+        return job(jobId).toDto();
+    }
+
+    /**
+     * CSV of the rejected rows ({@code line,error,record}); it grows while the job runs.
+     */
+    public Path getErrorFile(UUID jobId) {
+        return job(jobId).errors();
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+    }
+
+    private ImportJob job(UUID jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found");
+        }
+        return job;
+    }
+
+    private <T> ImportJobDto submit(ImportTarget<T> target, ImportFormat format, InputStream upload)
+            throws IOException {
+        Files.createDirectories(directory);
+        ImportJob job = new ImportJob(target.name(), format, directory);
+        try {
+            Files.copy(upload, job.upload());
+            ImportRowReader rows = new ImportRowReader(
+                    Files.newBufferedReader(job.upload(), StandardCharsets.UTF_8), format);
+            try {
+                checkColumns(target, format, rows.header());
+                Files.writeString(job.errors(), ERROR_FILE_HEADER, StandardCharsets.UTF_8);
+                jobs.put(job.id(), job);
+                jobExecutor.execute(() -> run(target, job, rows));
+            } catch (RuntimeException | IOException e) {
+                rows.close();
+                throw e;
+            }
+        } catch (RuntimeException | IOException e) {
+            jobs.remove(job.id());
+            Files.deleteIfExists(job.upload());
+            Files.deleteIfExists(job.errors());
+            throw e;
+        }
+        pruneFinishedJobs();
+        return job.toDto();
+    }
+
+    private static void checkColumns(ImportTarget<?> target, ImportFormat format, List<String> header) {
+        if (format == ImportFormat.CSV && !header.containsAll(target.requiredColumns())) {
+            throw new InvalidImportFileException(String.format("CSV header must contain the columns %s, found %s",
+                    String.join(", ", target.requiredColumns()), String.join(", ", header)));
+        }
+    }
+
+    private <T> void run(ImportTarget<T> target, ImportJob job, ImportRowReader rows) {
+        job.started();
+        Deque<Future<List<ValidatedRow<T>>>> inFlight = new ArrayDeque<>();
+        try (rows; BufferedWriter errors = Files.newBufferedWriter(job.errors(), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND)) {
+            List<SourceRow> batch;
+            InvalidImportFileException readFailure = null;
+            while (true) {
+                try {
+                    batch = rows.next(batchSize);
+                } catch (InvalidImportFileException e) {
+                    // Still write the batches read before the broken record
+                    readFailure = e;
+                    break;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                job.read(batch.size());
+                // Backpressure: stop reading until the oldest batch is written
+                if (inFlight.size() == maxBatchesInFlight) {
+                    write(target, job, inFlight.removeFirst().get(), errors);
+                }
+                List<SourceRow> toValidate = batch;
+                inFlight.addLast(validationExecutor.submit(
+                        () -> validate(target, job.format(), rows.header(), toValidate)));
+            }
+            while (!inFlight.isEmpty()) {
+                write(target, job, inFlight.removeFirst().get(), errors);
+            }
+            if (readFailure != null) {
+                throw readFailure;
+            }
+            job.completed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed("Import was interrupted");
+        } catch (ExecutionException e) {
+            failed(job, e.getCause());
+        } catch (Exception e) {
+            failed(job, e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            try {
+                Files.deleteIfExists(job.upload());
+            } catch (IOException e) {
+                logger.warn("Could not delete import upload {}", job.upload(), e);
+            }
+        }
+    }
+
+    private void failed(ImportJob job, Throwable cause) {
+        logger.warn("Import job {} failed", job.id(), cause);
+        job.failed(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+    }
+
+    private <T> List<ValidatedRow<T>> validate(ImportTarget<T> target, ImportFormat format, List<String> header,
+                                               List<SourceRow> rows) {
+        List<ValidatedRow<T>> validated = new ArrayList<>(rows.size());
+        for (SourceRow row : rows) {
+            try {
+                T value = parse(target, format, header, row);
+                String error = violations(target.constrained().apply(value));
+                validated.add(new ValidatedRow<>(row, error == null ? value : null, error));
+            } catch (IllegalArgumentException e) {
+                validated.add(new ValidatedRow<>(row, null, e.getMessage()));
+            }
+        }
+        return validated;
+    }
+
+    private <T> T parse(ImportTarget<T> target, ImportFormat format, List<String> header, SourceRow row) {
+        if (format == ImportFormat.CSV) {
+            if (row.fields().size() != header.size()) {
+                throw new IllegalArgumentException(String.format("Expected %d fields but found %d",
+                        header.size(), row.fields().size()));
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String value = row.fields().get(i).trim();
+                values.put(header.get(i), value.isEmpty() ? null : value);
+            }
+            return objectMapper.convertValue(values, target.type());
+        }
+        try {
+            T value = objectMapper.readValue(row.text(), target.type());
+            if (value == null) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return value;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private String violations(Object entity) {
+        List<String> messages = validator.validate(entity).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        return messages.isEmpty() ? null : String.join("; ", messages);
+    }
+
+    private <T> void write(ImportTarget<T> target, ImportJob job, List<ValidatedRow<T>> batch, Writer errors)
+            throws IOException {
+        List<T> values = batch.stream()
+                .filter(row -> row.error() == null)
+                .map(ValidatedRow::value)
+                .toList();
+        List<String> results = values.isEmpty() ? List.of() : target.writer().apply(values);
+
+        // Walk the batch in upload order so the error file stays sorted by line
+        int imported = 0;
+        int rejected = 0;
+        int next = 0;
+        for (ValidatedRow<T> row : batch) {
+            String error = row.error() != null ? row.error() : results.get(next++);
+            if (error != null) {
+                writeError(errors, row.source(), error);
+                rejected++;
+            } else {
+                imported++;
+            }
+        }
+        // Readers of a running job's error file see every batch written so far
+        errors.flush();
+        job.imported(imported);
+        job.rejected(rejected);
+    }
+
+    private static void writeError(Writer errors, SourceRow row, String error) throws IOException {
+        errors.write(row.line() + "," + quote(error) + "," + quote(row.text()) + "\n");
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) {
+            return;
+        }
+        List<ImportJob> oldest = jobs.values().stream()
+                .filter(ImportJob::finished)
+                .sorted(Comparator.comparing(ImportJob::submittedAt))
+                .limit(excess)
+                .toList();
+        for (ImportJob job : oldest) {
+            jobs.remove(job.id());
+            try {
+                Files.deleteIfExists(job.errors());
+            } catch (IOException e) {
+                logger.warn("Could not delete import error file {}", job.errors(), e);
+            }
+        }
+    }
+
+    private record ValidatedRow<T>(SourceRow source, T value, String error) {
+    }
+}
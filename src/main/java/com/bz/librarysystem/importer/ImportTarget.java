@@ -0,0 +1,15 @@
+package com.bz.librarysystem.importer;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * What an import writes: the DTO rows parse into, the CSV columns it requires, the entity whose bean
+ * validation constraints a row must meet, and the batch write that returns one error (or null) per row.
+ */
+record ImportTarget<T>(String name,
+                       Class<T> type,
+                       List<String> requiredColumns,
+                       Function<T, Object> constrained,
+                       Function<List<T>, List<String>> writer) {
+}
@@ -0,0 +1,10 @@
+package com.bz.librarysystem.importer;
+
+import java.util.List;
+
+/**
+ * One record as read from the upload: its first line number, its text for the error file and, for CSV, its
+ * fields. Parsing into a DTO is left to the validation workers.
+ */
+record SourceRow(long line, String text, List<String> fields) {
+}
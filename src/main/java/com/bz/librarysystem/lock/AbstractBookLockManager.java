@@ -0,0 +1,116 @@
+package com.bz.librarysystem.lock;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Acquisition, timing and bookkeeping shared by the lock manager implementations.
+ * Subclasses only decide which {@link Slot} guards a book and when a slot may be dropped.
+ */
+abstract class AbstractBookLockManager implements BookLockManager {
+
+    static final int HOTTEST_LIMIT = 10;
+
+    private final Duration defaultTimeout;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+
+    AbstractBookLockManager(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    protected abstract Slot acquireSlot(UUID bookId);
+
+    protected abstract void releaseSlot(UUID bookId, Slot slot);
+
+    protected abstract String type();
+
+    protected abstract int lockCount();
+
+    protected abstract Stream<BookLockStats.HotSpot> hotSpots();
+
+    @Override
+    public Optional<BookLock> tryLock(UUID bookId) {
+        return tryLock(bookId, defaultTimeout);
+    }
+
+    @Override
+    public Optional<BookLock> tryLock(UUID bookId, Duration timeout) {
+        Slot slot = acquireSlot(bookId);
+        ReentrantLock lock = slot.lock;
+        long start = System.nanoTime();
+
+        boolean locked = lock.tryLock();
+        if (!locked) {
+            contended.increment();
+            slot.contended.increment();
+            try {
+                locked = lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long acquiredAt = System.nanoTime();
+        waitNanos.add(acquiredAt - start);
+        if (!locked) {
+            timedOut.increment();
+            releaseSlot(bookId, slot);
+            return Optional.empty();
+        }
+        acquired.increment();
+        return Optional.of(new HeldLock(bookId, slot, acquiredAt));
+    }
+
+    @Override
+    public BookLockStats stats() {
+        List<BookLockStats.HotSpot> hottest = hotSpots()
+                .filter(hotSpot -> hotSpot.getContended() > 0)
+                .sorted(Comparator.comparingLong(BookLockStats.HotSpot::getContended).reversed())
+                .limit(HOTTEST_LIMIT)
+                .toList();
+        return new BookLockStats(type(), lockCount(), acquired.sum(), released.sum(), contended.sum(),
+                timedOut.sum(), waitNanos.sum(), holdNanos.sum(), hottest);
+    }
+
+    static class Slot {
+        final ReentrantLock lock = new ReentrantLock();
+        final LongAdder contended = new LongAdder();
+    }
+
+    private final class HeldLock implements BookLock {
+        private final UUID bookId;
+        private final Slot slot;
+        private final long acquiredAt;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+
+        private HeldLock(UUID bookId, Slot slot, long acquiredAt) {
+            this.bookId = bookId;
+            this.slot = slot;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void close() {
+            if (open.compareAndSet(true, false)) {
+                holdNanos.add(System.nanoTime() - acquiredAt);
+                released.increment();
+                slot.lock.unlock();
+                releaseSlot(bookId, slot);
+            }
+        }
+    }
+}
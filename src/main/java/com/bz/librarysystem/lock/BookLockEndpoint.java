@@ -0,0 +1,24 @@
+package com.bz.librarysystem.lock;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes lock statistics, including the most contended stripes or books, at /actuator/booklocks.
+ */
+@Component
+@Endpoint(id = "booklocks")
+public class BookLockEndpoint {
+
+    private final BookLockManager bookLockManager;
+
+    public BookLockEndpoint(BookLockManager bookLockManager) {
+        this.bookLockManager = bookLockManager;
+    }
+
+    @ReadOperation
+    public BookLockStats stats() {
+        return bookLockManager.stats();
+    }
+}
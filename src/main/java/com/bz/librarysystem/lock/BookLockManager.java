@@ -0,0 +1,30 @@
+package com.bz.librarysystem.lock;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Hands out per-book locks with a bounded wait, so a request queued behind a hot book
+ * gives up instead of parking its thread indefinitely.
+ */
+public interface BookLockManager {
+
+    /**
+     * Waits up to the configured default timeout for the lock of the given book.
+     * Returns an empty result if the lock could not be acquired in time.
+     */
+    Optional<BookLock> tryLock(UUID bookId);
+
+    Optional<BookLock> tryLock(UUID bookId, Duration timeout);
+
+    BookLockStats stats();
+
+    /**
+     * A held lock; closing it releases the lock.
+     */
+    interface BookLock extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,48 @@
+package com.bz.librarysystem.lock;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class BookLockMetrics implements MeterBinder {
+
+    private final BookLockManager bookLockManager;
+
+    public BookLockMetrics(BookLockManager bookLockManager) {
+        this.bookLockManager = bookLockManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("library.book.lock.wait", bookLockManager,
+                        manager -> {
+                            BookLockStats stats = manager.stats();
+                            return stats.getAcquired() + stats.getTimedOut();
+                        },
+                        manager -> manager.stats().getTotalWaitNanos(), TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for book locks")
+                .register(registry);
+        FunctionTimer.builder("library.book.lock.hold", bookLockManager,
+                        manager -> manager.stats().getReleased(),
+                        manager -> manager.stats().getTotalHoldNanos(), TimeUnit.NANOSECONDS)
+                .description("Time book locks were held")
+                .register(registry);
+        FunctionCounter.builder("library.book.lock.contended", bookLockManager,
+                        manager -> manager.stats().getContended())
+                .description("Lock requests that found the lock already held")
+                .register(registry);
+        FunctionCounter.builder("library.book.lock.timeouts", bookLockManager,
+                        manager -> manager.stats().getTimedOut())
+                .description("Lock requests that gave up after the timeout")
+                .register(registry);
+        Gauge.builder("library.book.lock.count", bookLockManager, manager -> manager.stats().getLockCount())
+                .description("Lock objects currently held in memory")
+                .register(registry);
+    }
+}
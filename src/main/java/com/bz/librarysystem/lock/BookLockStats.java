@@ -0,0 +1,29 @@
+package com.bz.librarysystem.lock;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookLockStats {
+    private String type;
+    // Lock objects currently held in memory
+    private int lockCount;
+    private long acquired;
+    private long released;
+    // Acquisitions that found the lock held and had to wait
+    private long contended;
+    private long timedOut;
+    private long totalWaitNanos;
+    private long totalHoldNanos;
+    private List<HotSpot> hottest;
+
+    @Data
+    @AllArgsConstructor
+    public static class HotSpot {
+        private String key;
+        private long contended;
+    }
+}
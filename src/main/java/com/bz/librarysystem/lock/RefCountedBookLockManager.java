@@ -0,0 +1,55 @@
+package com.bz.librarysystem.lock;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * One lock per book, kept only while some thread holds or waits for it. The map is
+ * bounded by the number of books in use at the same moment, not by the catalog size.
+ */
+public class RefCountedBookLockManager extends AbstractBookLockManager {
+
+    private final ConcurrentHashMap<UUID, CountedSlot> locks = new ConcurrentHashMap<>();
+
+    public RefCountedBookLockManager(Duration defaultTimeout) {
+        super(defaultTimeout);
+    }
+
+    @Override
+    protected Slot acquireSlot(UUID bookId) {
+        // compute() runs atomically per key, so the count cannot race with removal
+        return locks.compute(bookId, (id, slot) -> {
+            CountedSlot counted = slot == null ? new CountedSlot() : slot;
+            counted.references++;
+            return counted;
+        });
+    }
+
+    @Override
+    protected void releaseSlot(UUID bookId, Slot slot) {
+        locks.computeIfPresent(bookId, (id, counted) -> --counted.references == 0 ? null : counted);
+    }
+
+    @Override
+    protected String type() {
+        return "ref-counted";
+    }
+
+    @Override
+    protected int lockCount() {
+        return locks.size();
+    }
+
+    @Override
+    protected Stream<BookLockStats.HotSpot> hotSpots() {
+        return locks.entrySet().stream()
+                .map(entry -> new BookLockStats.HotSpot(entry.getKey().toString(), entry.getValue().contended.sum()));
+    }
+
+    private static class CountedSlot extends Slot {
+        // Guarded by the map's per-key compute
+        int references;
+    }
+}
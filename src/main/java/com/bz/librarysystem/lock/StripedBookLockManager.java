@@ -0,0 +1,61 @@
+package com.bz.librarysystem.lock;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A fixed array of locks shared by all books; memory stays constant however large the
+ * catalog grows, at the price of unrelated books occasionally sharing a stripe.
+ */
+public class StripedBookLockManager extends AbstractBookLockManager {
+
+    private final Slot[] stripes;
+    private final int mask;
+
+    public StripedBookLockManager(int stripeCount, Duration defaultTimeout) {
+        super(defaultTimeout);
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        // Round up to a power of two so the stripe index is a mask instead of a modulo
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Slot[Math.max(size, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Slot();
+        }
+        this.mask = stripes.length - 1;
+    }
+
+    int stripeOf(UUID bookId) {
+        int hash = bookId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    protected Slot acquireSlot(UUID bookId) {
+        return stripes[stripeOf(bookId)];
+    }
+
+    @Override
+    protected void releaseSlot(UUID bookId, Slot slot) {
+        // Stripes live for the lifetime of the manager
+    }
+
+    @Override
+    protected String type() {
+        return "striped";
+    }
+
+    @Override
+    protected int lockCount() {
+        return stripes.length;
+    }
+
+    @Override
+    protected Stream<BookLockStats.HotSpot> hotSpots() {
+        return IntStream.range(0, stripes.length)
+                .mapToObj(i -> new BookLockStats.HotSpot("stripe-" + i, stripes[i].contended.sum()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.bz.librarysystem.mapper;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
+
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    public static BookDto toDto(Book book) {
+        return new BookDto(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor(), book.getVersion());
+    }
+
+    // Version is assigned by JPA, so a new title never takes it from the request
+    public static BookTitle toTitle(BookDto bookDto) {
+        return new BookTitle(bookDto.getIsbn(), bookDto.getTitle(), bookDto.getAuthor());
+    }
+
+    public static Book toCopy(BookTitle bookTitle) {
+        Book book = new Book();
+        book.setBookTitle(bookTitle);
+        return book;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bz.librarysystem.mapper;
+
+import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.entity.Borrower;
+
+public final class BorrowerMapper {
+
+    private BorrowerMapper() {
+    }
+
+    public static BorrowerDto toDto(Borrower borrower) {
+        return new BorrowerDto(borrower.getId(), borrower.getEmail(), borrower.getName());
+    }
+
+    public static Borrower toEntity(BorrowerDto borrowerDto) {
+        Borrower borrower = new Borrower();
+        borrower.setName(borrowerDto.getName());
+        borrower.setEmail(borrowerDto.getEmail());
+        return borrower;
+    }
+}
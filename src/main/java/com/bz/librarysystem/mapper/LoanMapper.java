@@ -0,0 +1,34 @@
+package com.bz.librarysystem.mapper;
+
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanEventDto;
+import com.bz.librarysystem.entity.LoanEvent;
+import com.bz.librarysystem.entity.LoanRecord;
+
+import java.time.LocalDateTime;
+
+public final class LoanMapper {
+
+    private LoanMapper() {
+    }
+
+    // Reads only the borrower's id, so a lazy borrower is never loaded
+    public static LoanDto toDto(LoanRecord loan) {
+        return new LoanDto(loan.getId(), loan.getBook().getId(), loan.getBook().getIsbn(),
+                loan.getBorrower().getId(), loan.getBorrowedAt(), loan.getDueAt(), loan.getReturnedAt());
+    }
+
+    public static LoanEvent toEvent(LoanEvent.Type type, LoanDto loan) {
+        LocalDateTime occurredAt = switch (type) {
+            case BORROWED -> loan.getBorrowedAt();
+            case RETURNED -> loan.getReturnedAt();
+            case OVERDUE -> loan.getDueAt();
+        };
+        return new LoanEvent(null, type, loan.getBookId(), loan.getIsbn(), loan.getBorrowerId(), occurredAt);
+    }
+
+    public static LoanEventDto toDto(LoanEvent event) {
+        return new LoanEventDto(event.getId(), event.getType(), event.getBookId(), event.getIsbn(),
+                event.getBorrowerId(), event.getOccurredAt());
+    }
+}
@@ -0,0 +1,86 @@
+package com.bz.librarysystem.metrics;
+
+import com.bz.librarysystem.exception.BatchRejectedException;
+import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
+import com.bz.librarysystem.exception.BookBusyException;
+import com.bz.librarysystem.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Times every LibraryService operation with a percentile histogram, tagged by outcome.
+ * Runs outside the retry and transaction advice so one sample covers all attempts.
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LibraryServiceMetricsAspect {
+
+    static final String TIMER_NAME = "library.service.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    public LibraryServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.bz.librarysystem.service.LibraryService+.*(..))")
+    public Object timeServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcomeOf(e, isRetryable(joinPoint));
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("LibraryService operation latency")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    static String outcomeOf(Throwable e, boolean retryable) {
+        if (e instanceof BookAlreadyBorrowedException) {
+            return "already-borrowed";
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return "not-found";
+        }
+        if (e instanceof BookBusyException) {
+            return "busy";
+        }
+        if (e instanceof BatchRejectedException) {
+            return "batch-rejected";
+        }
+        // A concurrency failure escaping a @Retryable method means it gave up; elsewhere it was never retried
+        if (e instanceof ConcurrencyFailureException) {
+            return retryable ? "retry-exhausted" : "conflict";
+        }
+        return "error";
+    }
+
+    private static boolean isRetryable(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                targetClass);
+        return AnnotatedElementUtils.hasAnnotation(method, Retryable.class)
+                || AnnotatedElementUtils.hasAnnotation(targetClass, Retryable.class);
+    }
+}
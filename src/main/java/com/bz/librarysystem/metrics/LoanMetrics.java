@@ -0,0 +1,38 @@
+package com.bz.librarysystem.metrics;
+
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LoanMetrics implements MeterBinder {
+
+    private final Logger logger = LoggerFactory.getLogger(LoanMetrics.class);
+
+    private final LoanRecordRepository loanRepository;
+
+    public LoanMetrics(LoanRecordRepository loanRepository) {
+        this.loanRepository = loanRepository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Evaluated on each scrape, not on the request path
+        Gauge.builder("library.loans.active", this, LoanMetrics::activeLoans)
+                .description("Loans that have not been returned")
+                .register(registry);
+    }
+
+    private double activeLoans() {
+        try {
+            return loanRepository.countByReturnedAtIsNull();
+        } catch (RuntimeException e) {
+            logger.warn("Could not count active loans", e);
+            return Double.NaN;
+        }
+    }
+}
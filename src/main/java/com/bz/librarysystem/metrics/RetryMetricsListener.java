@@ -0,0 +1,59 @@
+package com.bz.librarysystem.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts failed attempts and retries of every @Retryable method; Spring Retry applies
+ * RetryListener beans to all annotated methods.
+ */
+@Component
+public class RetryMetricsListener implements RetryListener {
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+        Counter.builder("library.service.retry.failures")
+                .description("Attempts of @Retryable methods that failed")
+                .tag("method", methodOf(context))
+                .tag("exception", throwable.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                               Throwable throwable) {
+        // Every failed attempt except a final one was followed by a retry
+        int retries = context.getRetryCount() - (throwable == null ? 0 : 1);
+        if (retries > 0) {
+            Counter.builder("library.service.retries")
+                    .description("Retries performed by @Retryable methods")
+                    .tag("method", methodOf(context))
+                    .register(meterRegistry)
+                    .increment(retries);
+        }
+    }
+
+    // The default label is the method's generic signature; keep only the method name
+    static String methodOf(RetryContext context) {
+        Object name = context.getAttribute(RetryContext.NAME);
+        if (name == null) {
+            return "unknown";
+        }
+        String label = name.toString();
+        int parameters = label.indexOf('(');
+        String qualified = parameters < 0 ? label : label.substring(0, parameters);
+        return qualified.substring(qualified.lastIndexOf('.') + 1);
+    }
+}
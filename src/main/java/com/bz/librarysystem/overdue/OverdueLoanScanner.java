@@ -0,0 +1,110 @@
+package com.bz.librarysystem.overdue;
+
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.entity.LoanEvent;
+import com.bz.librarysystem.entity.ScanWatermark;
+import com.bz.librarysystem.mapper.LoanMapper;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import com.bz.librarysystem.repository.ScanWatermarkRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Announces loans that have become overdue since the previous run with an OVERDUE event in the loan event
+ * outbox. Each run reads open loans on the (dueAt, id) keyset after a watermark kept in scan_watermarks, in
+ * batches of {@code library.overdue.batch-size}, so it touches only the loans that fell due since the last
+ * run. Every batch is a short transaction of its own that reads the loans without locking them; only the
+ * watermark row is locked, which keeps two instances from announcing the same loan.
+ */
+@Component
+public class OverdueLoanScanner implements MeterBinder {
+
+    static final String WATERMARK = "overdue-loans";
+
+    private final Logger logger = LoggerFactory.getLogger(OverdueLoanScanner.class);
+
+    private final LoanRecordRepository loanRepository;
+    private final LoanEventRepository loanEventRepository;
+    private final ScanWatermarkRepository scanWatermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final LongAdder detected = new LongAdder();
+
+    public OverdueLoanScanner(LoanRecordRepository loanRepository,
+                              LoanEventRepository loanEventRepository,
+                              ScanWatermarkRepository scanWatermarkRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${library.overdue.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("library.overdue.batch-size must be at least 1");
+        }
+        this.loanRepository = loanRepository;
+        this.loanEventRepository = loanEventRepository;
+        this.scanWatermarkRepository = scanWatermarkRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${library.overdue.cron:0 0 1 * * *}")
+    public void scheduledScan() {
+        scan();
+    }
+
+    /**
+     * Announces every loan that fell due after the watermark and before now; returns how many there were.
+     */
+    public int scan() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> scanBatch(now));
+            total += count;
+        } while (count == batchSize);
+        logger.info("Overdue scan found {} newly overdue loans in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private int scanBatch(LocalDateTime now) {
+        ScanWatermark watermark = scanWatermarkRepository.findForUpdate(WATERMARK)
+                .orElseThrow(() -> new IllegalStateException("Missing scan watermark " + WATERMARK));
+        List<LoanDto> overdue = loanRepository.findOverdueAfter(now, watermark.getLastAt(), watermark.getLastId(),
+                Limit.of(batchSize));
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+        loanEventRepository.saveAll(overdue.stream()
+                .map(loan -> LoanMapper.toEvent(LoanEvent.Type.OVERDUE, loan))
+                .toList());
+        LoanDto last = overdue.get(overdue.size() - 1);
+        watermark.setLastAt(last.getDueAt());
+        watermark.setLastId(last.getLoanId());
+        detected.add(overdue.size());
+        return overdue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.overdue.detected", detected, LongAdder::sum)
+                .description("Loans announced as overdue by the overdue scanner")
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.entity.ArchivedLoan;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, UUID> {
+
+    // One statement per archive batch; the rows never pass through the persistence context. Naming the table it
+    // writes keeps Hibernate from clearing every second-level cache region after it.
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "loan_history"))
+    @Query(value = "insert into loan_history (id, book_id, borrower_id, borrowed_at, due_at, returned_at) " +
+            "select id, book_id, borrower_id, borrowed_at, due_at, returned_at from loans where id in (:ids)",
+            nativeQuery = true)
+    int copyFromLoans(@Param("ids") Collection<UUID> ids);
+
+    // The same keyset pages as LoanRecordRepository.findHistoryBy*, over the archive
+    @Query("select new com.bz.librarysystem.dto.LoanDto(a.id, a.bookId, b.bookTitle.isbn, a.borrowerId, a.borrowedAt, a.dueAt, a.returnedAt) " +
+            "from ArchivedLoan a join Book b on b.id = a.bookId where a.borrowerId = :borrowerId " +
+            "order by a.borrowedAt desc, a.id desc")
+    List<LoanDto> findHistoryByBorrower(@Param("borrowerId") UUID borrowerId, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(a.id, a.bookId, b.bookTitle.isbn, a.borrowerId, a.borrowedAt, a.dueAt, a.returnedAt) " +
+            "from ArchivedLoan a join Book b on b.id = a.bookId where a.borrowerId = :borrowerId " +
+            "and (a.borrowedAt < :borrowedAt or (a.borrowedAt = :borrowedAt and a.id < :id)) " +
+            "order by a.borrowedAt desc, a.id desc")
+    List<LoanDto> findHistoryByBorrowerBefore(@Param("borrowerId") UUID borrowerId,
+                                              @Param("borrowedAt") LocalDateTime borrowedAt,
+                                              @Param("id") UUID id, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(a.id, a.bookId, b.bookTitle.isbn, a.borrowerId, a.borrowedAt, a.dueAt, a.returnedAt) " +
+            "from ArchivedLoan a join Book b on b.id = a.bookId where a.bookId = :bookId " +
+            "order by a.borrowedAt desc, a.id desc")
+    List<LoanDto> findHistoryByBook(@Param("bookId") UUID bookId, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(a.id, a.bookId, b.bookTitle.isbn, a.borrowerId, a.borrowedAt, a.dueAt, a.returnedAt) " +
+            "from ArchivedLoan a join Book b on b.id = a.bookId where a.bookId = :bookId " +
+            "and (a.borrowedAt < :borrowedAt or (a.borrowedAt = :borrowedAt and a.id < :id)) " +
+            "order by a.borrowedAt desc, a.id desc")
+    List<LoanDto> findHistoryByBookBefore(@Param("bookId") UUID bookId,
+                                          @Param("borrowedAt") LocalDateTime borrowedAt,
+                                          @Param("id") UUID id, Limit limit);
+}
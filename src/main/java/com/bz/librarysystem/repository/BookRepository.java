@@ -1,16 +1,89 @@
 package com.bz.librarysystem.repository;
 
+import com.bz.librarysystem.dto.BookInventoryDto;
 import com.bz.librarysystem.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_LOCK_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, UUID> {
-    List<Book> findByIsbn(String isbn);
-    List<Book> findByTitleAndAuthor(String title, String author);
+    // Copies are read together with their title in one join instead of one select per title
+    @Override
+    @EntityGraph(attributePaths = "bookTitle")
+    List<Book> findAll();
+
+    @Query("select b from Book b join fetch b.bookTitle t where t.isbn = :isbn")
+    List<Book> findByIsbn(@Param("isbn") String isbn);
+
+    // Atomic claim and release; the version bump keeps @Version checks of entity updates valid
+    @Modifying
+    @Query("update Book b set b.borrowed = true, b.version = b.version + 1 where b.id = :id and b.borrowed = false")
+    int markBorrowed(@Param("id") UUID id);
+
+    // Locks the first free copy of an ISBN that no other transaction has locked (FOR UPDATE SKIP LOCKED), so
+    // concurrent claimers of a popular title each get a different copy without waiting for one another.
+    // Filtering on the copy's own isbn column keeps the shared book_titles row out of the lock. The lock mode comes
+    // from the hint alone (LockMode.UPGRADE_SKIPLOCKED): an @Lock is applied after the hints and would replace it.
+    @QueryHints(@QueryHint(name = HINT_NATIVE_LOCK_MODE, value = "upgrade-skiplocked"))
+    @Query("select b from Book b where b.bookTitle.isbn = :isbn and b.borrowed = false order by b.id")
+    List<Book> findAvailableForUpdate(@Param("isbn") String isbn, Limit limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.borrowed = false, b.version = b.version + 1 where b.id = :id and b.borrowed = true")
+    int markAvailable(@Param("id") UUID id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.borrowed = false, b.version = b.version + 1 where b.id in :ids and b.borrowed = true")
+    int markAllAvailable(@Param("ids") Collection<UUID> ids);
+
+    // Row locks are taken in id order, so batches that share books queue behind one another instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids order by b.id")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "bookTitle")
+    List<Book> findByIdIn(Collection<UUID> ids);
+
+    // Keyset pagination on id: first page, then every row after the last id seen
+    @EntityGraph(attributePaths = "bookTitle")
+    List<Book> findAllByOrderByIdAsc(Limit limit);
+    @EntityGraph(attributePaths = "bookTitle")
+    List<Book> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    // Must be consumed inside a transaction and closed by the caller
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Book b join fetch b.bookTitle")
+    Stream<Book> streamAll();
+
+    // Copies are counted by the database, one group per title
+    @Query("select new com.bz.librarysystem.dto.BookInventoryDto(t.isbn, t.title, t.author, count(b), " +
+            "sum(case when b.borrowed = false then 1L else 0L end)) " +
+            "from Book b join b.bookTitle t " +
+            "where (:isbn is null or t.isbn = :isbn) and (:author is null or t.author = :author) " +
+            "group by t.isbn, t.title, t.author order by t.isbn")
+    List<BookInventoryDto> findInventory(@Param("isbn") String isbn, @Param("author") String author, Pageable pageable);
 }
 
 
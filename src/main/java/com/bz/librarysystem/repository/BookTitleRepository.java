@@ -0,0 +1,32 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.entity.BookTitle;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface BookTitleRepository extends JpaRepository<BookTitle, String> {
+    // Feeds the search index at startup without loading every title at once
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t from BookTitle t")
+    Stream<BookTitle> streamAll();
+
+    // Loaded ahead of a locking read of the copies, which then find their titles in the persistence context
+    @Query("select distinct t from Book b join b.bookTitle t where b.id in :bookIds")
+    List<BookTitle> findByCopyIds(@Param("bookIds") Collection<UUID> bookIds);
+}
@@ -1,14 +1,24 @@
 package com.bz.librarysystem.repository;
 
 import com.bz.librarysystem.entity.Borrower;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface BorrowerRepository extends JpaRepository<Borrower, UUID> {
+    // Kept in the query cache until a borrower is registered on this instance; the unique index on email still
+    // rejects a duplicate registered elsewhere in the meantime
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Borrower> findByEmail(String email);
+    List<Borrower> findByEmailIn(Collection<String> emails);
 }
 
@@ -0,0 +1,39 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.entity.LoanEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+
+    // Primary-key range scans: the relay tails with the first one, late subscribers replay with the second
+    @Query("select e from LoanEvent e where e.id > :after order by e.id")
+    List<LoanEvent> findAfter(@Param("after") long after, Limit limit);
+
+    @Query("select e from LoanEvent e where e.id > :after and e.id <= :upTo order by e.id")
+    List<LoanEvent> findBetween(@Param("after") long after, @Param("upTo") long upTo, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from LoanEvent e")
+    long findMaxId();
+
+    // With findIdsBetween, finds the ids near the newest one that a transaction still in flight may commit
+    @Query("select coalesce(min(e.id), 0) from LoanEvent e where e.occurredAt >= :since")
+    long findMinIdSince(@Param("since") LocalDateTime since);
+
+    @Query("select e.id from LoanEvent e where e.id >= :from and e.id <= :upTo order by e.id")
+    List<Long> findIdsBetween(@Param("from") long from, @Param("upTo") long upTo);
+
+    @Transactional
+    @Modifying
+    @Query("delete from LoanEvent e where e.occurredAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
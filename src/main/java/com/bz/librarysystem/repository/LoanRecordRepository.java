@@ -1,14 +1,97 @@
 package com.bz.librarysystem.repository;
 
+import com.bz.librarysystem.dto.LoanDto;
 import com.bz.librarysystem.entity.LoanRecord;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_LOCK_MODE;
+
 @Repository
 public interface LoanRecordRepository extends JpaRepository<LoanRecord, UUID> {
+    // The copy is fetched with the loan because a return reports its ISBN
+    @EntityGraph(attributePaths = "book")
     Optional<LoanRecord> findByBookIdAndReturnedAtIsNull(UUID bookId);
-}
+    long countByReturnedAtIsNull();
+
+    @Modifying(clearAutomatically = true)
+    @Query("update LoanRecord l set l.returnedAt = :returnedAt where l.id = :id and l.returnedAt is null")
+    int markReturned(@Param("id") UUID id, @Param("returnedAt") LocalDateTime returnedAt);
+
+    // Locks the open loans in book order before their books, the same order as a single return
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from LoanRecord l where l.book.id in :bookIds and l.returnedAt is null order by l.book.id")
+    List<LoanRecord> findOpenByBookIdsForUpdate(@Param("bookIds") Collection<UUID> bookIds);
+
+    // Loan history, newest first, as flat rows built by the query itself: keyset pages on (borrowedAt, id)
+    // read only the loans columns and the copy's isbn, never whole entities
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where l.borrower.id = :borrowerId " +
+            "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findHistoryByBorrower(@Param("borrowerId") UUID borrowerId, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where l.borrower.id = :borrowerId " +
+            "and (l.borrowedAt < :borrowedAt or (l.borrowedAt = :borrowedAt and l.id < :id)) " +
+            "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findHistoryByBorrowerBefore(@Param("borrowerId") UUID borrowerId,
+                                              @Param("borrowedAt") LocalDateTime borrowedAt,
+                                              @Param("id") UUID id, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where b.id = :bookId " +
+            "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findHistoryByBook(@Param("bookId") UUID bookId, Limit limit);
 
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where b.id = :bookId " +
+            "and (l.borrowedAt < :borrowedAt or (l.borrowedAt = :borrowedAt and l.id < :id)) " +
+            "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findHistoryByBookBefore(@Param("bookId") UUID bookId,
+                                          @Param("borrowedAt") LocalDateTime borrowedAt,
+                                          @Param("id") UUID id, Limit limit);
+
+    // Open loans past their due date, oldest due first, on ix_loans_open_due (V7): keyset pages on (dueAt, id)
+    // for the overdue listing, and the overdue scanner's batches after its watermark
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where l.returnedAt is null and l.dueAt < :now " +
+            "order by l.dueAt, l.id")
+    List<LoanDto> findOverdue(@Param("now") LocalDateTime now, Limit limit);
+
+    @Query("select new com.bz.librarysystem.dto.LoanDto(l.id, b.id, b.bookTitle.isbn, l.borrower.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+            "from LoanRecord l join l.book b where l.returnedAt is null and l.dueAt < :now " +
+            "and (l.dueAt > :dueAt or (l.dueAt = :dueAt and l.id > :id)) " +
+            "order by l.dueAt, l.id")
+    List<LoanDto> findOverdueAfter(@Param("now") LocalDateTime now,
+                                   @Param("dueAt") LocalDateTime dueAt,
+                                   @Param("id") UUID id, Limit limit);
+
+    // The oldest returned loans, locked for the archive batch that moves them. Returned loans are never updated,
+    // so the lock only keeps a concurrent archiver from copying the same rows; it skips them instead of waiting.
+    // As in BookRepository.findAvailableForUpdate, the hint alone sets the lock mode.
+    @QueryHints(@QueryHint(name = HINT_NATIVE_LOCK_MODE, value = "upgrade-skiplocked"))
+    @Query("select l from LoanRecord l where l.returnedAt < :cutoff order by l.returnedAt, l.id")
+    List<LoanRecord> findReturnedBeforeForUpdate(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Query("select min(l.returnedAt) from LoanRecord l")
+    Optional<LocalDateTime> findOldestReturnedAt();
+
+    @Modifying
+    @Query("delete from LoanRecord l where l.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<UUID> ids);
+}
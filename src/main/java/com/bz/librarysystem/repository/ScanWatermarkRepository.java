@@ -0,0 +1,19 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.entity.ScanWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScanWatermarkRepository extends JpaRepository<ScanWatermark, String> {
+    // Held until the batch commits, so scans on other instances wait and then continue after this batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from ScanWatermark w where w.name = :name")
+    Optional<ScanWatermark> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,372 @@
+package com.bz.librarysystem.search;
+
+import com.bz.librarysystem.dto.BookSearchResultDto;
+import com.bz.librarysystem.entity.BookTitle;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the title, author and ISBN of every {@link BookTitle}, so patron search
+ * never scans the books table. Documents are titles, not copies: a million copies of a hundred thousand
+ * ISBNs are a hundred thousand documents.
+ *
+ * <p>Each query token matches index terms in three ways, best first: the exact term, terms it is a prefix
+ * of (so results appear while typing), and, when neither exists, terms sharing most of its trigrams (so
+ * typos still match). Every token must match; a document scores the sum over tokens of
+ * {@code match weight x field weight x idf}, so rare words and title hits rank first.
+ *
+ * <p>Titles are only ever added. Searches share a read lock, additions take the write lock.
+ */
+@Component
+public class BookSearchIndex {
+
+    static final byte TITLE = 1;
+    static final byte AUTHOR = 2;
+    static final byte ISBN = 4;
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double FUZZY = 0.4;
+    /** Minimum Dice similarity of trigram sets for a fuzzy match. */
+    private static final double MIN_SIMILARITY = 0.4;
+    /** Bounds the terms one short prefix or a typo can expand to. */
+    private static final int MAX_EXPANSIONS = 32;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    // Joins hyphenated digit groups, so "978-0-7475-3269-9" is one token like "9780747532699"
+    private static final Pattern DIGIT_HYPHENS = Pattern.compile("(?<=\\d)-(?=\\d)");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> documentsByIsbn = new HashMap<>();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, List<String>> termsByTrigram = new HashMap<>();
+
+    public void add(BookTitle title) {
+        addAll(List.of(title));
+    }
+
+    /** Adds titles not indexed yet; adding an ISBN again is a no-op. */
+    public void addAll(Collection<BookTitle> titles) {
+        lock.writeLock().lock();
+        try {
+            for (BookTitle title : titles) {
+                if (documentsByIsbn.containsKey(title.getIsbn())) {
+                    continue;
+                }
+                int id = documents.size();
+                documents.add(new Document(title.getIsbn(), title.getTitle(), title.getAuthor()));
+                documentsByIsbn.put(title.getIsbn(), id);
+                index(id, title.getTitle(), TITLE);
+                index(id, title.getAuthor(), AUTHOR);
+                index(id, title.getIsbn(), ISBN);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} titles matching every token of the query, best first. */
+    public List<BookSearchResultDto> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Match>> matches = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<Match> tokenMatches = expand(token);
+                if (tokenMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(tokenMatches);
+            }
+            // Start from the most selective token and only probe the others for its candidates
+            matches.sort(Comparator.comparingLong(BookSearchIndex::postingCount));
+            Candidates candidates = candidates(matches.get(0));
+            for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                candidates.retainAndScore(matches.get(i));
+            }
+            return top(candidates, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        folded = DIGIT_HYPHENS.matcher(folded).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void index(int id, String text, byte field) {
+        for (String token : tokenize(text)) {
+            Postings postings = terms.get(token);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(token, postings);
+                for (String trigram : trigrams(token)) {
+                    termsByTrigram.computeIfAbsent(trigram, key -> new ArrayList<>()).add(token);
+                }
+            }
+            postings.add(id, field);
+        }
+    }
+
+    private List<Match> expand(String token) {
+        List<Match> matches = new ArrayList<>();
+        Postings exact = terms.get(token);
+        if (exact != null) {
+            matches.add(new Match(exact, EXACT * idf(exact)));
+        }
+        for (Map.Entry<String, Postings> entry : terms.tailMap(token, false).entrySet()) {
+            if (!entry.getKey().startsWith(token) || matches.size() >= MAX_EXPANSIONS) {
+                break;
+            }
+            matches.add(new Match(entry.getValue(), PREFIX * idf(entry.getValue())));
+        }
+        if (matches.isEmpty()) {
+            matches.addAll(fuzzy(token));
+        }
+        return matches;
+    }
+
+    // Terms sharing most trigrams with the token, e.g. "tolkein" -> "tolkien"
+    private List<Match> fuzzy(String token) {
+        Set<String> trigrams = trigrams(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            for (String term : termsByTrigram.getOrDefault(trigram, List.of())) {
+                shared.merge(term, 1, Integer::sum);
+            }
+        }
+        List<Map.Entry<String, Double>> similar = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            double similarity = 2.0 * entry.getValue() / (trigrams.size() + trigrams(entry.getKey()).size());
+            if (similarity >= MIN_SIMILARITY) {
+                similar.add(Map.entry(entry.getKey(), similarity));
+            }
+        }
+        similar.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return similar.stream()
+                .limit(MAX_EXPANSIONS)
+                .map(entry -> {
+                    Postings postings = terms.get(entry.getKey());
+                    return new Match(postings, FUZZY * entry.getValue() * idf(postings));
+                })
+                .toList();
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Union of the token's postings, one entry per document with its best score
+    private static Candidates candidates(List<Match> matches) {
+        Candidates candidates = new Candidates((int) postingCount(matches));
+        if (matches.size() == 1) {
+            Match match = matches.get(0);
+            for (int i = 0; i < match.postings().size; i++) {
+                candidates.merge(match.postings().documents[i], match.score(i));
+            }
+            return candidates;
+        }
+        // k-way merge of the ascending postings keeps the candidates sorted by document for binary search
+        int[] cursors = new int[matches.size()];
+        PriorityQueue<Integer> next = new PriorityQueue<>(matches.size(),
+                Comparator.comparingInt(m -> matches.get(m).postings().documents[cursors[m]]));
+        for (int m = 0; m < matches.size(); m++) {
+            next.add(m);
+        }
+        while (!next.isEmpty()) {
+            int m = next.poll();
+            Match match = matches.get(m);
+            candidates.merge(match.postings().documents[cursors[m]], match.score(cursors[m]));
+            if (++cursors[m] < match.postings().size) {
+                next.add(m);
+            }
+        }
+        return candidates;
+    }
+
+    private List<BookSearchResultDto> top(Candidates candidates, int limit) {
+        // Insertion into a short sorted array: most candidates lose against the current worst in one comparison
+        int[] best = new int[Math.min(limit, candidates.size)];
+        if (best.length == 0) {
+            return List.of();
+        }
+        int count = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            if (count == best.length && !(candidates.scores[i] > candidates.scores[best[count - 1]])) {
+                continue;
+            }
+            int position = count == best.length ? count - 1 : count++;
+            // Equal scores keep the title indexed first
+            while (position > 0 && candidates.scores[i] > candidates.scores[best[position - 1]]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = i;
+        }
+        List<BookSearchResultDto> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Document document = documents.get(candidates.documents[best[i]]);
+            results.add(new BookSearchResultDto(document.isbn(), document.title(), document.author(),
+                    candidates.scores[best[i]]));
+        }
+        return results;
+    }
+
+    private double idf(Postings postings) {
+        return Math.log(1 + (double) documents.size() / postings.size);
+    }
+
+    private static double fieldWeight(byte fields) {
+        if ((fields & ISBN) != 0) {
+            return 3.0;
+        }
+        return (fields & TITLE) != 0 ? 2.0 : 1.0;
+    }
+
+    private static long postingCount(List<Match> matches) {
+        long count = 0;
+        for (Match match : matches) {
+            count += match.postings().size;
+        }
+        return count;
+    }
+
+    private record Document(String isbn, String title, String author) {
+    }
+
+    /** A term a query token matched; {@code weight} already includes the match kind and the term's idf. */
+    private record Match(Postings postings, double weight) {
+        double score(int index) {
+            return weight * fieldWeight(postings.fields[index]);
+        }
+    }
+
+    /** Documents matching the tokens so far, ascending, with their accumulated scores. */
+    private static final class Candidates {
+        private final int[] documents;
+        private final double[] scores;
+        private int size;
+
+        Candidates(int capacity) {
+            documents = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        void merge(int document, double score) {
+            if (size > 0 && documents[size - 1] == document) {
+                scores[size - 1] = Math.max(scores[size - 1], score);
+                return;
+            }
+            documents[size] = document;
+            scores[size] = score;
+            size++;
+        }
+
+        // Drops the documents the token does not match and adds its best score to the others. Both sides are
+        // sorted, so each term's postings are walked once, galloping over the stretches with no candidate.
+        void retainAndScore(List<Match> matches) {
+            double[] best = new double[size];
+            for (Match match : matches) {
+                Postings postings = match.postings();
+                int position = 0;
+                for (int i = 0; i < size && position < postings.size; i++) {
+                    position = postings.seek(position, documents[i]);
+                    if (position < postings.size && postings.documents[position] == documents[i]) {
+                        best[i] = Math.max(best[i], match.score(position));
+                    }
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (best[i] > 0) {
+                    documents[kept] = documents[i];
+                    scores[kept] = scores[i] + best[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /** Documents containing a term, in ascending id order, with the fields it occurs in. */
+    private static final class Postings {
+        private int[] documents = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        void add(int document, byte field) {
+            if (size > 0 && documents[size - 1] == document) {
+                fields[size - 1] |= field;
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            documents[size] = document;
+            fields[size] = field;
+            size++;
+        }
+
+        /** The first position at or after {@code from} whose document is not below {@code document}. */
+        int seek(int from, int document) {
+            if (from >= size || documents[from] >= document) {
+                return from;
+            }
+            int step = 1;
+            while (from + step < size && documents[from + step] < document) {
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(documents, from + (step >> 1) + 1, Math.min(from + step, size), document);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
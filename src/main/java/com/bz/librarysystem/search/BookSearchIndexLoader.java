@@ -0,0 +1,65 @@
+package com.bz.librarysystem.search;
+
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.repository.BookTitleRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fills the {@link BookSearchIndex} from the titles table once the application is up. Titles registered
+ * meanwhile are added by the service after their commit; the index ignores an ISBN it already holds.
+ */
+@Component
+class BookSearchIndexLoader {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(BookSearchIndexLoader.class);
+
+    private final BookSearchIndex bookSearchIndex;
+    private final BookTitleRepository bookTitleRepository;
+    private final EntityManager entityManager;
+
+    BookSearchIndexLoader(BookSearchIndex bookSearchIndex,
+                          BookTitleRepository bookTitleRepository,
+                          EntityManager entityManager) {
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookTitleRepository = bookTitleRepository;
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public void load() {
+        long start = System.nanoTime();
+        List<BookTitle> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<BookTitle> titles = bookTitleRepository.streamAll()) {
+            titles.forEach(title -> {
+                chunk.add(title);
+                if (chunk.size() == CHUNK_SIZE) {
+                    addChunk(chunk);
+                }
+            });
+        }
+        addChunk(chunk);
+        logger.info("Search index loaded with {} titles in {} ms", bookSearchIndex.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void addChunk(List<BookTitle> chunk) {
+        bookSearchIndex.addAll(chunk);
+        // Keep the persistence context from growing with the catalog
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+    }
+}
@@ -2,20 +2,40 @@ package com.bz.librarysystem.service;
 
 import com.bz.librarysystem.dto.BookDto;
 import com.bz.librarysystem.dto.BookInventoryDto;
+import com.bz.librarysystem.dto.BookPageDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
 import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.BorrowerRegistrationResultDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanPageDto;
+import com.bz.librarysystem.dto.LoanResultDto;
 import com.bz.librarysystem.entity.Book;
 import com.bz.librarysystem.entity.Borrower;
-import com.bz.librarysystem.entity.LoanRecord;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface LibraryService {
 
     public BookDto registerBook(BookDto book);
+    public List<BookRegistrationResultDto> registerBooks(List<BookDto> books);
     public BorrowerDto registerBorrower(BorrowerDto borrower);
-    public LoanRecord borrowBook(UUID bookId, UUID borrowerId);
-    public LoanRecord returnBook(UUID bookId);
+    public List<BorrowerRegistrationResultDto> registerBorrowers(List<BorrowerDto> borrowers);
+    public LoanDto borrowBook(UUID bookId, UUID borrowerId);
+    public LoanDto borrowAnyCopy(String isbn, UUID borrowerId);
+    public LoanDto returnBook(UUID bookId);
+    public List<LoanResultDto> borrowBooks(UUID borrowerId, List<UUID> bookIds, boolean allOrNothing);
+    public List<LoanResultDto> returnBooks(List<UUID> bookIds, boolean allOrNothing);
+    public LoanPageDto getBorrowerLoans(UUID borrowerId, String cursor, Integer limit);
+    public LoanPageDto getBookLoans(UUID bookId, String cursor, Integer limit);
+    public LoanPageDto getOverdueLoans(String cursor, Integer limit);
     public List<BookDto> getAllBooks();
-    public List<BookInventoryDto> getBookInventory();
+    public BookDto getBook(UUID bookId);
+    public List<BookDto> getBooksByIsbn(String isbn);
+    public BookPageDto getBooksPage(String cursor, Integer limit);
+    public void streamAllBooks(Consumer<BookDto> consumer);
+    public List<BookInventoryDto> getBookInventory(String isbn, String author, int page, int size);
+    public List<BookSearchResultDto> searchBooks(String query, Integer limit);
 }
@@ -0,0 +1,27 @@
+package com.bz.librarysystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * How long a loan runs before it is overdue ({@code library.loans.period}, default 14 days).
+ */
+@Component
+public class LoanPolicy {
+
+    private final Duration loanPeriod;
+
+    public LoanPolicy(@Value("${library.loans.period:14d}") Duration loanPeriod) {
+        if (loanPeriod.isNegative() || loanPeriod.isZero()) {
+            throw new IllegalArgumentException("library.loans.period must be positive");
+        }
+        this.loanPeriod = loanPeriod;
+    }
+
+    public LocalDateTime dueAt(LocalDateTime borrowedAt) {
+        return borrowedAt.plus(loanPeriod);
+    }
+}
@@ -1,71 +1,227 @@
 package com.bz.librarysystem.service.impl;
 
+import com.bz.librarysystem.config.CacheConfig;
+import com.bz.librarysystem.config.CatalogVersion;
 import com.bz.librarysystem.dto.BookInventoryDto;
 import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookPageDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
 import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.BorrowerRegistrationResultDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanPageDto;
+import com.bz.librarysystem.dto.LoanResultDto;
 import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
 import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.entity.LoanEvent;
 import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.exception.BatchRejectedException;
 import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
+import com.bz.librarysystem.exception.BookBusyException;
 import com.bz.librarysystem.exception.DuplicateBorrowerEmailException;
 import com.bz.librarysystem.exception.InvalidBookDataException;
 import com.bz.librarysystem.exception.ResourceNotFoundException;
+import com.bz.librarysystem.lock.BookLockManager;
+import com.bz.librarysystem.lock.BookLockManager.BookLock;
+import com.bz.librarysystem.mapper.BookMapper;
+import com.bz.librarysystem.mapper.BorrowerMapper;
+import com.bz.librarysystem.mapper.LoanMapper;
+import com.bz.librarysystem.repository.ArchivedLoanRepository;
 import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BookTitleRepository;
 import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanEventRepository;
 import com.bz.librarysystem.repository.LoanRecordRepository;
+import com.bz.librarysystem.search.BookSearchIndex;
 import com.bz.librarysystem.service.LibraryService;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.BeanUtils;
+import com.bz.librarysystem.service.LoanPolicy;
+import jakarta.persistence.EntityManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LibraryServiceImpl implements LibraryService {
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_CIRCULATION_BATCH_SIZE = 100;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+    static final int MAX_SEARCH_LIMIT = 100;
+
+    // The order of the history queries: newest first, then by id descending. The databases compare uuids by
+    // their unsigned bytes, which is their text order, whereas UUID.compareTo compares signed halves.
+    private static final Comparator<LoanDto> NEWEST_FIRST = Comparator.comparing(LoanDto::getBorrowedAt)
+            .thenComparing(loan -> loan.getLoanId().toString())
+            .reversed();
+
     private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
     private final BorrowerRepository borrowerRepository;
     private final LoanRecordRepository loanRepository;
+    private final LoanEventRepository loanEventRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final BookLockManager bookLockManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final LoanPolicy loanPolicy;
+    private final CatalogVersion catalogVersion;
 
-    private final ModelMapper modelMapper;
-
-
-    private final ConcurrentHashMap<UUID, ReentrantLock> bookLocks = new ConcurrentHashMap<>();
+    private final EntityManager entityManager;
 
     public LibraryServiceImpl(BookRepository bookRepository,
+                              BookTitleRepository bookTitleRepository,
                               BorrowerRepository borrowerRepository,
                               LoanRecordRepository loanRepository,
-                              ModelMapper modelMapper) {
+                              LoanEventRepository loanEventRepository,
+                              ArchivedLoanRepository archivedLoanRepository,
+                              BookLockManager bookLockManager,
+                              BookSearchIndex bookSearchIndex,
+                              LoanPolicy loanPolicy,
+                              CatalogVersion catalogVersion,
+                              EntityManager entityManager) {
         this.bookRepository = bookRepository;
+        this.bookTitleRepository = bookTitleRepository;
         this.borrowerRepository = borrowerRepository;
         this.loanRepository = loanRepository;
-        this.modelMapper = modelMapper;
+        this.loanEventRepository = loanEventRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.bookLockManager = bookLockManager;
+        this.bookSearchIndex = bookSearchIndex;
+        this.loanPolicy = loanPolicy;
+        this.catalogVersion = catalogVersion;
+        this.entityManager = entityManager;
     }
 
-
-    private ReentrantLock getOrCreateLock(UUID bookId) {
-        return bookLocks.computeIfAbsent(bookId, k -> new ReentrantLock());
+    // Correctness comes from the conditional updates; the local lock only queues callers of the
+    // same book on this node and turns a long queue into a fast failure
+    private BookLock lockBook(UUID bookId) {
+        return bookLockManager.tryLock(bookId)
+                .orElseThrow(() -> new BookBusyException("Book is busy, please retry"));
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    // A title seen for the first time is inserted with its first copy. If a concurrent registration
+    // inserts the same ISBN first, the key violation rolls this attempt back and the retry finds the title.
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = {ConcurrencyFailureException.class, DataIntegrityViolationException.class})
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#bookDto.isbn"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY}, allEntries = true)
+    })
     public BookDto registerBook(BookDto bookDto) {
-        validateIsbnData(bookDto);
+        String error = validateBookData(bookDto);
+        if (error != null) {
+            throw new InvalidBookDataException(error);
+        }
 
-        Book book = new Book();
-        BeanUtils.copyProperties(bookDto, book);
-        System.out.println("book is " + book.getTitle());
-        Book savedBook =  bookRepository.save(book);
-        BeanUtils.copyProperties(savedBook, bookDto);
-        return bookDto;
+        // One primary-key read, however many copies the ISBN already has
+        BookTitle bookTitle = bookTitleRepository.findById(bookDto.getIsbn()).orElse(null);
+        if (bookTitle == null) {
+            bookTitle = bookTitleRepository.save(BookMapper.toTitle(bookDto));
+            indexAfterCommit(List.of(bookTitle));
+        } else {
+            error = validateMatchesTitle(bookDto, bookTitle);
+            if (error != null) {
+                throw new InvalidBookDataException(error);
+            }
+        }
+
+        Book savedBook = bookRepository.save(BookMapper.toCopy(bookTitle));
+        catalogVersion.changed();
+        return BookMapper.toDto(savedBook);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = {ConcurrencyFailureException.class, DataIntegrityViolationException.class})
+    @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY, CacheConfig.BOOKS_BY_ISBN},
+            allEntries = true)
+    public List<BookRegistrationResultDto> registerBooks(List<BookDto> bookDtos) {
+        if (bookDtos == null) {
+            throw new IllegalArgumentException("Book list cannot be null");
+        }
+        if (bookDtos.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBookDataException(
+                    String.format("A batch may contain at most %d books", MAX_BATCH_SIZE));
+        }
+
+        // One lookup for every distinct ISBN in the batch instead of one per copy
+        Set<String> isbns = bookDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookDto::getIsbn)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, BookTitle> titles = new HashMap<>();
+        if (!isbns.isEmpty()) {
+            bookTitleRepository.findAllById(isbns).forEach(title -> titles.put(title.getIsbn(), title));
+        }
+
+        // ISBNs first seen in this batch are defined by their first valid item
+        List<BookTitle> newTitles = new ArrayList<>();
+        BookRegistrationResultDto[] results = new BookRegistrationResultDto[bookDtos.size()];
+        List<Book> toSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < bookDtos.size(); i++) {
+            BookDto bookDto = bookDtos.get(i);
+            String error = validateBookData(bookDto);
+            BookTitle bookTitle = error == null ? titles.get(bookDto.getIsbn()) : null;
+            if (bookTitle != null) {
+                error = validateMatchesTitle(bookDto, bookTitle);
+            }
+            if (error != null) {
+                results[i] = BookRegistrationResultDto.rejected(i, bookDto, error);
+                continue;
+            }
+            if (bookTitle == null) {
+                bookTitle = BookMapper.toTitle(bookDto);
+                titles.put(bookTitle.getIsbn(), bookTitle);
+                newTitles.add(bookTitle);
+            }
+            toSave.add(BookMapper.toCopy(bookTitle));
+            savedIndexes.add(i);
+        }
+
+        // Inserts are grouped into JDBC batches (hibernate.jdbc.batch_size)
+        bookTitleRepository.saveAll(newTitles);
+        indexAfterCommit(newTitles);
+        List<Book> savedBooks = bookRepository.saveAll(toSave);
+        if (!savedBooks.isEmpty()) {
+            catalogVersion.changed();
+        }
+        for (int i = 0; i < savedBooks.size(); i++) {
+            int index = savedIndexes.get(i);
+            results[index] = BookRegistrationResultDto.registered(index, BookMapper.toDto(savedBooks.get(i)));
+        }
+        return List.of(results);
     }
 
     @Transactional(isolation = Isolation.REPEATABLE_READ)
@@ -73,110 +229,562 @@ public class LibraryServiceImpl implements LibraryService {
         if (borrowerDto == null) {
             throw new IllegalArgumentException("BorrowerDto cannot be null");
         }
-        Borrower borrower = new Borrower();
-        BeanUtils.copyProperties(borrowerDto, borrower);
+        Borrower borrower = BorrowerMapper.toEntity(borrowerDto);
 
         if (borrowerRepository.findByEmail(borrower.getEmail()).isPresent()) {
             throw new DuplicateBorrowerEmailException("Borrower with this email already exists");
         }
         try {
             Borrower savedBorrower = borrowerRepository.save(borrower);
-            BeanUtils.copyProperties(savedBorrower, borrowerDto);
-            return borrowerDto;
+            return BorrowerMapper.toDto(savedBorrower);
 
         } catch (DataIntegrityViolationException e) {
             throw new DuplicateBorrowerEmailException("Borrower with this email already exists");
         }
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @Retryable(maxAttempts = 3, value = ObjectOptimisticLockingFailureException.class)
-    public LoanRecord borrowBook(UUID bookId, UUID borrowerId) {
-        ReentrantLock lock = getOrCreateLock(bookId);
-        lock.lock();
-        try {
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+    // A concurrent registration of one of the emails rolls the batch back; the retry then reports it as a duplicate
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = {ConcurrencyFailureException.class, DataIntegrityViolationException.class})
+    public List<BorrowerRegistrationResultDto> registerBorrowers(List<BorrowerDto> borrowerDtos) {
+        if (borrowerDtos == null) {
+            throw new IllegalArgumentException("Borrower list cannot be null");
+        }
+        if (borrowerDtos.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("A batch may contain at most %d borrowers", MAX_BATCH_SIZE));
+        }
 
-            if (book.isBorrowed()) {
-                throw new BookAlreadyBorrowedException("Book is borrowed already");
+        // One lookup for the whole batch instead of a findByEmail per borrower
+        Set<String> emails = borrowerDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BorrowerDto::getEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> takenEmails = new HashSet<>();
+        if (!emails.isEmpty()) {
+            borrowerRepository.findByEmailIn(emails).forEach(borrower -> takenEmails.add(borrower.getEmail()));
+        }
+
+        BorrowerRegistrationResultDto[] results = new BorrowerRegistrationResultDto[borrowerDtos.size()];
+        List<Borrower> toSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < borrowerDtos.size(); i++) {
+            BorrowerDto borrowerDto = borrowerDtos.get(i);
+            if (borrowerDto == null || isBlank(borrowerDto.getName()) || isBlank(borrowerDto.getEmail())) {
+                results[i] = BorrowerRegistrationResultDto.rejected(i, borrowerDto, "Name and email are required");
+                continue;
+            }
+            // Also catches an email repeated within the batch
+            if (!takenEmails.add(borrowerDto.getEmail())) {
+                results[i] = BorrowerRegistrationResultDto.rejected(i, borrowerDto,
+                        "Borrower with this email already exists");
+                continue;
             }
+            toSave.add(BorrowerMapper.toEntity(borrowerDto));
+            savedIndexes.add(i);
+        }
 
-            Borrower borrower = borrowerRepository.findById(borrowerId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Borrower not found"));
+        List<Borrower> savedBorrowers = borrowerRepository.saveAll(toSave);
+        for (int i = 0; i < savedBorrowers.size(); i++) {
+            int index = savedIndexes.get(i);
+            results[index] = BorrowerRegistrationResultDto.registered(index, BorrowerMapper.toDto(savedBorrowers.get(i)));
+        }
+        return List.of(results);
+    }
 
-            book.setBorrowed(true);
-            bookRepository.save(book);
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = ConcurrencyFailureException.class)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#result.isbn"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY}, allEntries = true)
+    })
+    public LoanDto borrowBook(UUID bookId, UUID borrowerId) {
+        Borrower borrower = borrowerRepository.findById(borrowerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Borrower not found"));
 
-            LoanRecord loan = new LoanRecord();
-            loan.setBook(book);
-            loan.setBorrower(borrower);
-            loan.setBorrowedAt(LocalDateTime.now());
+        try (BookLock ignored = lockBook(bookId)) {
+            // The conditional update is the claim: only one transaction can flip is_borrowed to true,
+            // whichever node it runs on
+            if (bookRepository.markBorrowed(bookId) == 0) {
+                if (!bookRepository.existsById(bookId)) {
+                    throw new ResourceNotFoundException("Book not found");
+                }
+                throw new BookAlreadyBorrowedException("Book is borrowed already");
+            }
 
-            return loanRepository.save(loan);
-        } finally {
-            lock.unlock();
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+            LoanDto loan = LoanMapper.toDto(openLoan(book, borrower));
+            recordEvents(LoanEvent.Type.BORROWED, List.of(loan));
+            return loan;
+        }
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = ConcurrencyFailureException.class)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#result.bookId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#isbn"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY}, allEntries = true)
+    })
+    public LoanDto borrowAnyCopy(String isbn, UUID borrowerId) {
+        Borrower borrower = borrowerRepository.findById(borrowerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Borrower not found"));
+
+        // Copies locked by concurrent claimers are skipped, not waited for, so each claimer gets its own
+        List<Book> available = bookRepository.findAvailableForUpdate(isbn, Limit.of(1));
+        if (available.isEmpty()) {
+            if (!bookTitleRepository.existsById(isbn)) {
+                throw new ResourceNotFoundException("Book not found");
+            }
+            throw new BookAlreadyBorrowedException("No copy of this ISBN is available");
         }
+
+        // The row lock is held until commit, so the versioned update of the claimed copy cannot conflict
+        Book book = available.get(0);
+        book.setBorrowed(true);
+        LoanDto loan = LoanMapper.toDto(openLoan(book, borrower));
+        recordEvents(LoanEvent.Type.BORROWED, List.of(loan));
+        return loan;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @Retryable(maxAttempts = 3, value = ObjectOptimisticLockingFailureException.class)
-    public LoanRecord returnBook(UUID bookId) {
-        ReentrantLock lock = getOrCreateLock(bookId);
-        lock.lock();
+    private LoanRecord openLoan(Book book, Borrower borrower) {
+        LoanRecord loan = new LoanRecord();
+        loan.setBook(book);
+        loan.setBorrower(borrower);
+        loan.setBorrowedAt(LocalDateTime.now());
+        loan.setDueAt(loanPolicy.dueAt(loan.getBorrowedAt()));
+
+        // ux_loans_open_book admits one open loan per book, so a claim that slipped past is_borrowed
+        // (e.g. a row flipped by hand) still cannot produce a second active loan
         try {
+            return loanRepository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            throw new BookAlreadyBorrowedException("Book is borrowed already");
+        }
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = ConcurrencyFailureException.class)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#result.isbn"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY}, allEntries = true)
+    })
+    public LoanDto returnBook(UUID bookId) {
+        try (BookLock ignored = lockBook(bookId)) {
             LoanRecord loan = loanRepository.findByBookIdAndReturnedAtIsNull(bookId)
                     .orElseThrow(() -> new ResourceNotFoundException("No active loan found for this book"));
+            // Mapped before the updates clear the persistence context
+            LoanDto result = LoanMapper.toDto(loan);
+
+            // A concurrent return of the same loan makes this update match no row
+            LocalDateTime returnedAt = LocalDateTime.now();
+            if (loanRepository.markReturned(loan.getId(), returnedAt) == 0) {
+                throw new ResourceNotFoundException("No active loan found for this book");
+            }
+            bookRepository.markAvailable(bookId);
+
+            result.setReturnedAt(returnedAt);
+            recordEvents(LoanEvent.Type.RETURNED, List.of(result));
+            return result;
+        }
+    }
+
+    // A desk checkout in one transaction: one borrower read, one locking read of every copy and one JDBC batch
+    // of loans. The row locks replace the per-book local locks, which would have to be taken one by one.
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = ConcurrencyFailureException.class)
+    @CacheEvict(cacheNames = {CacheConfig.BOOK, CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY,
+            CacheConfig.BOOKS_BY_ISBN}, allEntries = true)
+    public List<LoanResultDto> borrowBooks(UUID borrowerId, List<UUID> bookIds, boolean allOrNothing) {
+        validateCirculationBatch(bookIds);
+        Borrower borrower = borrowerRepository.findById(borrowerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Borrower not found"));
+
+        Map<UUID, Book> books = lockBooks(bookIds);
+        LocalDateTime borrowedAt = LocalDateTime.now();
+        LocalDateTime dueAt = loanPolicy.dueAt(borrowedAt);
+        LoanResultDto[] results = new LoanResultDto[bookIds.size()];
+        List<LoanRecord> loans = new ArrayList<>();
+        List<Integer> loanIndexes = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+
+        for (int i = 0; i < bookIds.size(); i++) {
+            UUID bookId = bookIds.get(i);
+            Book book = books.get(bookId);
+            String error = !seen.add(bookId) ? "Book appears more than once in the batch"
+                    : book == null ? "Book not found"
+                    : book.isBorrowed() ? "Book is borrowed already"
+                    : null;
+            if (error != null) {
+                results[i] = LoanResultDto.rejected(i, bookId, error);
+                continue;
+            }
+            // The copies are locked, so the versioned updates of these flags cannot conflict
+            book.setBorrowed(true);
+            loans.add(new LoanRecord(null, book, borrower, borrowedAt, dueAt, null));
+            loanIndexes.add(i);
+        }
+        rejectIfAnyFailed(results, allOrNothing);
+
+        try {
+            loanRepository.saveAllAndFlush(loans);
+        } catch (DataIntegrityViolationException e) {
+            // ux_loans_open_book caught a copy whose is_borrowed flag disagrees with its loans
+            throw new BookAlreadyBorrowedException("A book of the batch is borrowed already");
+        }
+        List<LoanDto> borrowed = loans.stream().map(LoanMapper::toDto).toList();
+        recordEvents(LoanEvent.Type.BORROWED, borrowed);
+        for (int i = 0; i < borrowed.size(); i++) {
+            int index = loanIndexes.get(i);
+            results[index] = LoanResultDto.borrowed(index, borrowed.get(i));
+        }
+        return List.of(results);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Retryable(maxAttempts = 3, value = ConcurrencyFailureException.class)
+    @CacheEvict(cacheNames = {CacheConfig.BOOK, CacheConfig.BOOKS, CacheConfig.BOOK_PAGES, CacheConfig.INVENTORY,
+            CacheConfig.BOOKS_BY_ISBN}, allEntries = true)
+    public List<LoanResultDto> returnBooks(List<UUID> bookIds, boolean allOrNothing) {
+        validateCirculationBatch(bookIds);
+
+        Set<UUID> ids = bookIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<UUID, Book> books = new HashMap<>();
+        Map<UUID, LoanRecord> openLoans = new HashMap<>();
+        if (!ids.isEmpty()) {
+            // Copies and titles first, so the locking read of the loans finds them in the persistence context
+            bookRepository.findByIdIn(ids).forEach(book -> books.put(book.getId(), book));
+            loanRepository.findOpenByBookIdsForUpdate(ids).forEach(loan -> openLoans.put(loan.getBook().getId(), loan));
+        }
+
+        LocalDateTime returnedAt = LocalDateTime.now();
+        LoanResultDto[] results = new LoanResultDto[bookIds.size()];
+        List<LoanRecord> loans = new ArrayList<>();
+        List<Integer> loanIndexes = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+
+        for (int i = 0; i < bookIds.size(); i++) {
+            UUID bookId = bookIds.get(i);
+            LoanRecord loan = openLoans.get(bookId);
+            String error = !seen.add(bookId) ? "Book appears more than once in the batch"
+                    : !books.containsKey(bookId) ? "Book not found"
+                    : loan == null ? "No active loan found for this book"
+                    : null;
+            if (error != null) {
+                results[i] = LoanResultDto.rejected(i, bookId, error);
+                continue;
+            }
+            loan.setReturnedAt(returnedAt);
+            loans.add(loan);
+            loanIndexes.add(i);
+        }
+        rejectIfAnyFailed(results, allOrNothing);
+
+        if (!loans.isEmpty()) {
+            // The loan updates go out as one JDBC batch before the books are released in one statement
+            loanRepository.flush();
+            bookRepository.markAllAvailable(loans.stream().map(loan -> loan.getBook().getId()).toList());
+        }
+        // The copies were loaded before the update cleared the persistence context, so mapping needs no query
+        List<LoanDto> returned = loans.stream().map(LoanMapper::toDto).toList();
+        recordEvents(LoanEvent.Type.RETURNED, returned);
+        for (int i = 0; i < returned.size(); i++) {
+            int index = loanIndexes.get(i);
+            results[index] = LoanResultDto.returned(index, returned.get(i));
+        }
+        return List.of(results);
+    }
 
-            Book book = loan.getBook();
-            book.setBorrowed(false);
-            bookRepository.save(book);
+    // Outbox rows for LoanEventRelay, written in the loan's own transaction so they commit or roll back with it.
+    // A loan also changes the availability the catalog shows, so its ETags move once the transaction commits.
+    private void recordEvents(LoanEvent.Type type, List<LoanDto> loans) {
+        if (!loans.isEmpty()) {
+            loanEventRepository.saveAll(loans.stream().map(loan -> LoanMapper.toEvent(type, loan)).toList());
+            catalogVersion.changed();
+        }
+    }
+
+    private static void validateCirculationBatch(List<UUID> bookIds) {
+        if (bookIds == null) {
+            throw new IllegalArgumentException("Book id list cannot be null");
+        }
+        if (bookIds.size() > MAX_CIRCULATION_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("A batch may contain at most %d books", MAX_CIRCULATION_BATCH_SIZE));
+        }
+    }
 
-            loan.setReturnedAt(LocalDateTime.now());
-            return loanRepository.save(loan);
-        } finally {
-            lock.unlock();
+    private Map<UUID, Book> lockBooks(List<UUID> bookIds) {
+        Set<UUID> ids = bookIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<UUID, Book> books = new HashMap<>();
+        if (ids.isEmpty()) {
+            return books;
+        }
+        // Titles first, so the locking read does not select them one ISBN at a time
+        bookTitleRepository.findByCopyIds(ids);
+        bookRepository.findAllByIdForUpdate(ids).forEach(book -> books.put(book.getId(), book));
+        return books;
+    }
+
+    // Rolls the whole batch back, nothing has been written yet
+    private static void rejectIfAnyFailed(LoanResultDto[] results, boolean allOrNothing) {
+        if (!allOrNothing) {
+            return;
+        }
+        for (LoanResultDto result : results) {
+            if (result != null) {
+                throw new BatchRejectedException(String.format("Batch rejected, item %d (book %s): %s",
+                        result.getIndex(), result.getBookId(), result.getError()));
+            }
         }
     }
 
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    @Cacheable(CacheConfig.BOOKS)
     public List<BookDto> getAllBooks() {
         return bookRepository.findAll().stream()
-                .map(book -> modelMapper.map(book, BookDto.class))
+                .map(BookMapper::toDto)
                 .toList();
     }
 
-    public List<BookInventoryDto> getBookInventory() {
-        List<Book> books = bookRepository.findAll();
-        // Group by ISBN to show they're different books
-        return books.stream()
-                .collect(Collectors.groupingBy(Book::getIsbn))
-                .entrySet().stream()
-                .map(entry -> new BookInventoryDto(
-                        entry.getKey(),
-                        entry.getValue().get(0).getTitle(),
-                        entry.getValue().get(0).getAuthor(),
-                        entry.getValue().size()
-                ))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    @Cacheable(CacheConfig.BOOK)
+    public BookDto getBook(UUID bookId) {
+        return bookRepository.findById(bookId)
+                .map(BookMapper::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+    }
 
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    @Cacheable(CacheConfig.BOOKS_BY_ISBN)
+    public List<BookDto> getBooksByIsbn(String isbn) {
+        return bookRepository.findByIsbn(isbn).stream()
+                .map(BookMapper::toDto)
+                .toList();
     }
 
-    private void validateIsbnData(BookDto newBook) {
-        List<Book> existingBooks = bookRepository.findByIsbn(newBook.getIsbn());
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    @Cacheable(CacheConfig.BOOK_PAGES)
+    public BookPageDto getBooksPage(String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        // Fetch one extra row to find out whether another page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Book> books = cursor == null || cursor.isBlank()
+                ? bookRepository.findAllByOrderByIdAsc(fetchLimit)
+                : bookRepository.findByIdGreaterThanOrderByIdAsc(decodeCursor(cursor), fetchLimit);
 
-        if (!existingBooks.isEmpty()) {
-            Book existingBook = existingBooks.get(0);
+        boolean hasMore = books.size() > pageSize;
+        List<BookDto> items = books.stream()
+                .limit(pageSize)
+                .map(BookMapper::toDto)
+                .toList();
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new BookPageDto(items, nextCursor);
+    }
 
-            // Books with same ISBN must have same title and author
-            if (!existingBook.getTitle().equals(newBook.getTitle()) ||
-                    !existingBook.getAuthor().equals(newBook.getAuthor())) {
-                throw new InvalidBookDataException(
-                        String.format("Books with ISBN %s must have title '%s' and author '%s'",
-                                newBook.getIsbn(), existingBook.getTitle(), existingBook.getAuthor())
-                );
+    // A page spans loans and the archive in loan_history. Repeatable read gives both queries one snapshot, so
+    // a loan archived in between is neither repeated nor missed.
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public LoanPageDto getBorrowerLoans(UUID borrowerId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        if (isBlank(cursor)) {
+            List<LoanDto> loans = newestFirst(loanRepository.findHistoryByBorrower(borrowerId, fetchLimit),
+                    archivedLoanRepository.findHistoryByBorrower(borrowerId, fetchLimit), fetchLimit);
+            // Only an empty first page pays for telling an unknown borrower from one without loans
+            if (loans.isEmpty() && !borrowerRepository.existsById(borrowerId)) {
+                throw new ResourceNotFoundException("Borrower not found");
             }
+            return loanPage(loans, pageSize, LoanDto::getBorrowedAt);
+        }
+        LoanCursor after = decodeLoanCursor(cursor);
+        return loanPage(newestFirst(
+                loanRepository.findHistoryByBorrowerBefore(borrowerId, after.at(), after.loanId(), fetchLimit),
+                archivedLoanRepository.findHistoryByBorrowerBefore(borrowerId, after.at(), after.loanId(), fetchLimit),
+                fetchLimit), pageSize, LoanDto::getBorrowedAt);
+    }
 
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public LoanPageDto getBookLoans(UUID bookId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        if (isBlank(cursor)) {
+            List<LoanDto> loans = newestFirst(loanRepository.findHistoryByBook(bookId, fetchLimit),
+                    archivedLoanRepository.findHistoryByBook(bookId, fetchLimit), fetchLimit);
+            if (loans.isEmpty() && !bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book not found");
+            }
+            return loanPage(loans, pageSize, LoanDto::getBorrowedAt);
+        }
+        LoanCursor after = decodeLoanCursor(cursor);
+        return loanPage(newestFirst(
+                loanRepository.findHistoryByBookBefore(bookId, after.at(), after.loanId(), fetchLimit),
+                archivedLoanRepository.findHistoryByBookBefore(bookId, after.at(), after.loanId(), fetchLimit),
+                fetchLimit), pageSize, LoanDto::getBorrowedAt);
+    }
+
+    // Not cached: the set changes with the clock, and the partial index serves a page with a range scan
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public LoanPageDto getOverdueLoans(String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        LocalDateTime now = LocalDateTime.now();
+        if (isBlank(cursor)) {
+            return loanPage(loanRepository.findOverdue(now, fetchLimit), pageSize, LoanDto::getDueAt);
+        }
+        LoanCursor after = decodeLoanCursor(cursor);
+        return loanPage(loanRepository.findOverdueAfter(now, after.at(), after.loanId(), fetchLimit),
+                pageSize, LoanDto::getDueAt);
+    }
+
+    // Merges a page of loans with the same page of the archive and keeps the first rows of the combined order
+    private static List<LoanDto> newestFirst(List<LoanDto> loans, List<LoanDto> archived, Limit limit) {
+        if (archived.isEmpty()) {
+            return loans;
+        }
+        return Stream.concat(loans.stream(), archived.stream())
+                .sorted(NEWEST_FIRST)
+                .limit(limit.max())
+                .toList();
+    }
+
+    // The query fetched one row more than the page holds; its presence means another page exists
+    private static LoanPageDto loanPage(List<LoanDto> loans, int pageSize, Function<LoanDto, LocalDateTime> sortedBy) {
+        if (loans.size() <= pageSize) {
+            return new LoanPageDto(loans, null);
+        }
+        List<LoanDto> items = loans.subList(0, pageSize);
+        LoanDto last = items.get(pageSize - 1);
+        return new LoanPageDto(List.copyOf(items), encodeLoanCursor(sortedBy.apply(last), last.getLoanId()));
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public void streamAllBooks(Consumer<BookDto> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(BookMapper.toDto(book));
+                // Keep the persistence context from growing with the catalog
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    @Cacheable(CacheConfig.INVENTORY)
+    public List<BookInventoryDto> getBookInventory(String isbn, String author, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page index must not be negative");
         }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        return bookRepository.findInventory(blankToNull(isbn), blankToNull(author), PageRequest.of(page, size));
+    }
+
+    public List<BookSearchResultDto> searchBooks(String query, Integer limit) {
+        if (isBlank(query)) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (maxResults < 1 || maxResults > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException(
+                    String.format("Search limit must be between 1 and %d", MAX_SEARCH_LIMIT));
+        }
+        return bookSearchIndex.search(query, maxResults);
+    }
+
+    // The index only learns about titles whose insert committed; a rolled-back attempt leaves no trace
+    private void indexAfterCommit(List<BookTitle> titles) {
+        if (titles.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bookSearchIndex.addAll(titles);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookSearchIndex.addAll(titles);
+            }
+        });
+    }
+
+    private static String validateBookData(BookDto newBook) {
+        if (newBook == null) {
+            return "Book cannot be null";
+        }
+        if (isBlank(newBook.getIsbn()) || isBlank(newBook.getTitle()) || isBlank(newBook.getAuthor())) {
+            return "ISBN, title and author are required";
+        }
+        return null;
+    }
+
+    // Books with same ISBN must have same title and author
+    private static String validateMatchesTitle(BookDto newBook, BookTitle bookTitle) {
+        if (!bookTitle.getTitle().equals(newBook.getTitle()) || !bookTitle.getAuthor().equals(newBook.getAuthor())) {
+            return isbnConflictMessage(bookTitle.getIsbn(), bookTitle.getTitle(), bookTitle.getAuthor());
+        }
+        return null;
+    }
+
+    private static int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        return pageSize;
+    }
+
+    private static String encodeCursor(UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UUID decodeCursor(String cursor) {
+        try {
+            return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Position of the last loan of a page: the timestamp it is sorted by (borrowedAt or dueAt) and, to break
+    // ties, its id
+    private record LoanCursor(LocalDateTime at, UUID loanId) {
+    }
+
+    private static String encodeLoanCursor(LocalDateTime at, UUID loanId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((at + "," + loanId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LoanCursor decodeLoanCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+            return new LoanCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String isbnConflictMessage(String isbn, String title, String author) {
+        return String.format("Books with ISBN %s must have title '%s' and author '%s'", isbn, title, author);
+    }
+
+    private static String blankToNull(String value) {
+        return isBlank(value) ? null : value;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 }
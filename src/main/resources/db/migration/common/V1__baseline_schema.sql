@@ -0,0 +1,35 @@
+-- Tables as previously generated by Hibernate from the entities; Hibernate now only validates them
+create table book_titles (
+    isbn    varchar(255) not null,
+    title   varchar(255) not null,
+    author  varchar(255) not null,
+    version bigint,
+    constraint pk_book_titles primary key (isbn)
+);
+
+create table books (
+    id          uuid         not null,
+    isbn        varchar(255) not null,
+    version     bigint,
+    is_borrowed boolean      not null,
+    constraint pk_books primary key (id),
+    constraint fk_books_book_titles foreign key (isbn) references book_titles (isbn)
+);
+
+create table borrowers (
+    id    uuid         not null,
+    name  varchar(255),
+    email varchar(255),
+    constraint pk_borrowers primary key (id)
+);
+
+create table loans (
+    id          uuid         not null,
+    book_id     uuid         not null,
+    borrower_id uuid         not null,
+    borrowed_at timestamp(6) not null,
+    returned_at timestamp(6),
+    constraint pk_loans primary key (id),
+    constraint fk_loans_books foreign key (book_id) references books (id),
+    constraint fk_loans_borrowers foreign key (borrower_id) references borrowers (id)
+);
@@ -0,0 +1,11 @@
+-- BookRepository.findByIsbn and the copy rows of a title
+create index ix_books_isbn on books (isbn);
+
+-- LoanRecordRepository.findByBookIdAndReturnedAtIsNull and the loan history of a book
+create index ix_loans_book_returned on loans (book_id, returned_at);
+
+-- LoanRecord.borrower has no index of its own otherwise
+create index ix_loans_borrower on loans (borrower_id);
+
+-- BorrowerRepository.findByEmail; also backs the duplicate-email check of registerBorrower
+create unique index ux_borrowers_email on borrowers (email);
@@ -0,0 +1,3 @@
+-- Keyset pages of a borrower's and of a book's loan history, newest first: LoanRecordRepository.findHistoryBy*
+create index ix_loans_borrower_history on loans (borrower_id, borrowed_at, id);
+create index ix_loans_book_history on loans (book_id, borrowed_at, id);
@@ -0,0 +1,12 @@
+-- Outbox of loan events, tailed in id order by LoanEventRelay and purged after library.events.retention
+create table loan_events (
+    id          bigint generated by default as identity,
+    type        varchar(16)  not null,
+    book_id     uuid         not null,
+    isbn        varchar(255) not null,
+    borrower_id uuid         not null,
+    occurred_at timestamp(6) not null,
+    constraint pk_loan_events primary key (id)
+);
+
+create index ix_loan_events_occurred_at on loan_events (occurred_at);
@@ -0,0 +1,16 @@
+-- Every loan has a due date (LoanPolicy); loans opened before this migration are due 14 days after borrowing
+alter table loans add column due_at timestamp(6);
+update loans set due_at = borrowed_at + interval '14' day;
+alter table loans alter column due_at set not null;
+
+-- Where incremental scans left off, as the (timestamp, id) keyset of the last row they processed. The overdue
+-- scan starts at the migration, so loans that were overdue already are listed but not announced.
+create table scan_watermarks (
+    name    varchar(64)  not null,
+    last_at timestamp(6) not null,
+    last_id uuid         not null,
+    constraint pk_scan_watermarks primary key (name)
+);
+
+insert into scan_watermarks (name, last_at, last_id)
+values ('overdue-loans', localtimestamp, '00000000-0000-0000-0000-000000000000');
@@ -0,0 +1,9 @@
+-- The catalog's change token behind the ETags of the catalog list endpoints (CatalogVersion). One row, bumped
+-- after every committed register, borrow and return, so every instance serves the same tag for the same catalog.
+create table catalog_version (
+    id      int    not null,
+    version bigint not null,
+    constraint pk_catalog_version primary key (id)
+);
+
+insert into catalog_version (id, version) values (1, 0);
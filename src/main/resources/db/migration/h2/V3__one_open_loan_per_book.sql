@@ -0,0 +1,5 @@
+-- At most one loan per book may be open. H2 has no partial indexes, so the unique index covers a generated
+-- column that holds book_id while the loan is open and NULL once it is returned (NULLs never collide).
+alter table loans add column open_book_id uuid generated always as (case when returned_at is null then book_id end);
+
+create unique index ux_loans_open_book on loans (open_book_id);
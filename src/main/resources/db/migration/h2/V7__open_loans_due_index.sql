@@ -0,0 +1,3 @@
+-- Open loans by due date for the overdue listing and scanner. H2 has no partial indexes; returned_at leads,
+-- so "returned_at is null" narrows the index to the open loans before the due-date range is read.
+create index ix_loans_open_due on loans (returned_at, due_at, id);
@@ -0,0 +1,16 @@
+-- Returned loans moved out of loans by LoanArchiver. H2 has no table partitioning, so this is one plain table
+-- with the columns and indexes of the PostgreSQL one. The archiver's scan of loans by returned_at is served by
+-- ix_loans_open_due (returned_at, due_at, id) from V7.
+-- No foreign keys: history rows are written once in bulk and never change.
+create table loan_history (
+    id          uuid         not null,
+    book_id     uuid         not null,
+    borrower_id uuid         not null,
+    borrowed_at timestamp(6) not null,
+    due_at      timestamp(6) not null,
+    returned_at timestamp(6) not null,
+    constraint pk_loan_history primary key (id)
+);
+
+create index ix_loan_history_borrower on loan_history (borrower_id, borrowed_at, id);
+create index ix_loan_history_book on loan_history (book_id, borrowed_at, id);
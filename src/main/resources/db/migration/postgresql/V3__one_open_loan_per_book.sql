@@ -0,0 +1,2 @@
+-- At most one loan per book may be open; a second concurrent borrow fails on insert
+create unique index ux_loans_open_book on loans (book_id) where returned_at is null;
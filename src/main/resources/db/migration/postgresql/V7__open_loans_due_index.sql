@@ -0,0 +1,2 @@
+-- Open loans by due date for the overdue listing and scanner; returned loans, the vast majority, are left out
+create index ix_loans_open_due on loans (due_at, id) where returned_at is null;
@@ -0,0 +1,22 @@
+-- Returned loans moved out of loans by LoanArchiver, range-partitioned by the month they were returned in.
+-- LoanHistoryPartitions creates each month's partition before rows of that month are moved; the default
+-- partition only catches rows of a month whose partition could not be created.
+-- No foreign keys: history rows are written once in bulk and never change.
+create table loan_history (
+    id          uuid         not null,
+    book_id     uuid         not null,
+    borrower_id uuid         not null,
+    borrowed_at timestamp(6) not null,
+    due_at      timestamp(6) not null,
+    returned_at timestamp(6) not null,
+    constraint pk_loan_history primary key (id, returned_at)
+) partition by range (returned_at);
+
+create table loan_history_default partition of loan_history default;
+
+-- Keyset pages of a borrower's and of a book's archived loans, like ix_loans_*_history on loans
+create index ix_loan_history_borrower on loan_history (borrower_id, borrowed_at, id);
+create index ix_loan_history_book on loan_history (book_id, borrowed_at, id);
+
+-- The archiver's scan for returned loans older than the archive age
+create index ix_loans_returned on loans (returned_at, id) where returned_at is not null;
@@ -0,0 +1,89 @@
+package com.bz.librarysystem.archive;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.repository.ArchivedLoanRepository;
+import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import com.bz.librarysystem.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LoanArchiverTest {
+
+    @Autowired
+    private LoanArchiver loanArchiver;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanRecordRepository loanRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Test
+    void archive_MovesOldReturnedLoansAndHistorySpansBothStores() {
+        Book book = saveBook();
+        Borrower borrower = saveBorrower();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LoanRecord old = loan(book, borrower, now.minusDays(200), now.minusDays(190));
+        LoanRecord recent = loan(book, borrower, now.minusDays(30), now.minusDays(20));
+        LoanRecord open = loan(book, borrower, now.minusDays(2), null);
+
+        assertTrue(loanArchiver.archive() >= 1);
+
+        assertFalse(loanRecordRepository.existsById(old.getId()));
+        assertTrue(archivedLoanRepository.existsById(old.getId()));
+        assertTrue(loanRecordRepository.existsById(recent.getId()));
+        assertTrue(loanRecordRepository.existsById(open.getId()));
+        assertEquals(old.getReturnedAt(), archivedLoanRepository.findById(old.getId()).orElseThrow().getReturnedAt());
+
+        List<LoanDto> firstPage = libraryService.getBorrowerLoans(borrower.getId(), null, 2).getItems();
+        String cursor = libraryService.getBorrowerLoans(borrower.getId(), null, 2).getNextCursor();
+        List<LoanDto> secondPage = libraryService.getBorrowerLoans(borrower.getId(), cursor, 2).getItems();
+
+        assertEquals(List.of(open.getId(), recent.getId()), firstPage.stream().map(LoanDto::getLoanId).toList());
+        assertEquals(List.of(old.getId()), secondPage.stream().map(LoanDto::getLoanId).toList());
+        assertEquals(book.getIsbn(), secondPage.get(0).getIsbn());
+        assertEquals(3, libraryService.getBookLoans(book.getId(), null, 10).getItems().size());
+    }
+
+    private LoanRecord loan(Book book, Borrower borrower, LocalDateTime borrowedAt, LocalDateTime returnedAt) {
+        return loanRecordRepository.save(
+                new LoanRecord(null, book, borrower, borrowedAt, borrowedAt.plusDays(14), returnedAt));
+    }
+
+    private Book saveBook() {
+        BookDto book = libraryService.registerBook(
+                new BookDto(null, "978-" + UUID.randomUUID().toString().substring(0, 8), "Archived", "Author", null));
+        return bookRepository.findById(book.getId()).orElseThrow();
+    }
+
+    private Borrower saveBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Archived Reader");
+        borrower.setEmail("archive-" + UUID.randomUUID() + "@example.com");
+        return borrowerRepository.save(borrower);
+    }
+}
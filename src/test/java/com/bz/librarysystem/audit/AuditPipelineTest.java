@@ -0,0 +1,81 @@
+package com.bz.librarysystem.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditPipelineTest {
+
+    @Test
+    void ringBuffer_RejectsOfferWhenFullAndReusesSlots() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void ringBuffer_KeepsEveryItemFromConcurrentProducers() throws Exception {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1 << 14);
+        int producers = 4;
+        int perProducer = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(buffer.offer(base + i));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Set<Integer> seen = new HashSet<>();
+        Integer item;
+        while ((item = buffer.poll()) != null) {
+            seen.add(item);
+        }
+        assertEquals(producers * perProducer, seen.size());
+    }
+
+    @Test
+    void pipeline_CountsDropsInsteadOfBlocking() {
+        AuditPipeline pipeline = new AuditPipeline(2, 1.0);
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.record(new AuditEvent(0, "borrowBook", "", "success", 1));
+        }
+
+        assertEquals(3, pipeline.dropped());
+        assertEquals(2, pipeline.drain());
+        assertEquals(2, pipeline.written());
+    }
+
+    @Test
+    void pipeline_SampleRateZeroSkipsSuccessfulCalls() {
+        AuditPipeline pipeline = new AuditPipeline(2, 0.0);
+
+        assertFalse(pipeline.sample());
+        assertThrows(IllegalArgumentException.class, () -> new AuditPipeline(2, 1.5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.LibraryApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Boots the application without a web server against its own in-memory H2 database and
+ * seeds data with plain JDBC batches, so setup time does not dominate large catalogs.
+ */
+final class BenchmarkApplication {
+
+    private static final int SEED_BATCH = 10_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--library.audit.directory=target/benchmark-logs"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    static List<UUID> insertBooks(ConfigurableApplicationContext context, int count, IntFunction<String> isbnOf) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Set<String> isbns = new LinkedHashSet<>();
+        List<UUID> ids = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            String isbn = isbnOf.apply(i);
+            isbns.add(isbn);
+            batch.add(new Object[]{id, isbn});
+        }
+
+        List<Object[]> titles = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            titles.add(new Object[]{isbn, "Title " + isbn, "Author " + isbn});
+        }
+        for (int from = 0; from < titles.size(); from += SEED_BATCH) {
+            jdbcTemplate.batchUpdate("insert into book_titles (isbn, title, author, version) values (?, ?, ?, 0)",
+                    titles.subList(from, Math.min(titles.size(), from + SEED_BATCH)));
+        }
+        for (int from = 0; from < batch.size(); from += SEED_BATCH) {
+            jdbcTemplate.batchUpdate("insert into books (id, isbn, version, is_borrowed) values (?, ?, 0, false)",
+                    batch.subList(from, Math.min(batch.size(), from + SEED_BATCH)));
+        }
+        return ids;
+    }
+
+    static List<UUID> insertBorrowers(ConfigurableApplicationContext context, int count) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<UUID> ids = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            batch.add(new Object[]{id, "Borrower " + i, "borrower" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into borrowers (id, name, email) values (?, ?, ?)", batch);
+        return ids;
+    }
+}
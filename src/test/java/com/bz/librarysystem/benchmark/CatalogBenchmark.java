@@ -0,0 +1,56 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookInventoryDto;
+import com.bz.librarysystem.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog reads at 10k, 100k and 1M books, ten copies per ISBN. With {@code cached=false} the catalog cache is
+ * off and every call runs the queries; with {@code cached=true} every call after the first is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogBenchmark {
+
+    private static final int COPIES_PER_ISBN = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    public int books;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("catalog", "--library.cache.enabled=" + cached);
+        libraryService = context.getBean(LibraryService.class);
+        BenchmarkApplication.insertBooks(context, books, i -> "isbn-" + i / COPIES_PER_ISBN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookDto> getAllBooks() {
+        return libraryService.getAllBooks();
+    }
+
+    @Benchmark
+    public List<BookInventoryDto> getBookInventory() {
+        return libraryService.getBookInventory(null, null, 0, 500);
+    }
+}
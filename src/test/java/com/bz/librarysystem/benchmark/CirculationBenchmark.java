@@ -0,0 +1,92 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
+import com.bz.librarysystem.exception.BookBusyException;
+import com.bz.librarysystem.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Borrow-then-return cycles at 1, 8 and 64 threads. With "hot" every thread competes for
+ * one book, so most cycles lose the claim; with "cold" each thread owns a book and only
+ * shares the connection pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CirculationBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    @Param({"hot", "cold"})
+    public String contention;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private List<UUID> books;
+    private List<UUID> borrowers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("circulation");
+        libraryService = context.getBean(LibraryService.class);
+        books = BenchmarkApplication.insertBooks(context, MAX_THREADS, i -> "isbn-" + i);
+        borrowers = BenchmarkApplication.insertBorrowers(context, MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        UUID bookId;
+        UUID borrowerId;
+
+        @Setup(Level.Trial)
+        public void setUp(CirculationBenchmark benchmark) {
+            int worker = benchmark.nextWorker.getAndIncrement() % MAX_THREADS;
+            bookId = "hot".equals(benchmark.contention) ? benchmark.books.get(0) : benchmark.books.get(worker);
+            borrowerId = benchmark.borrowers.get(worker);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean borrowReturn1Thread(Worker worker) {
+        return borrowAndReturn(worker);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean borrowReturn8Threads(Worker worker) {
+        return borrowAndReturn(worker);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean borrowReturn64Threads(Worker worker) {
+        return borrowAndReturn(worker);
+    }
+
+    // Returns whether this cycle won the book
+    private boolean borrowAndReturn(Worker worker) {
+        try {
+            libraryService.borrowBook(worker.bookId, worker.borrowerId);
+        } catch (BookAlreadyBorrowedException | BookBusyException e) {
+            return false;
+        }
+        libraryService.returnBook(worker.bookId);
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.mapper.BookMapper;
+import com.bz.librarysystem.mapper.BorrowerMapper;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective mapping the service used to do (ModelMapper with the old
+ * configuration, BeanUtils.copyProperties) against the hand-written mappers.
+ * Run with {@code ./mvnw -Pbenchmark verify -Djmh.includes=MappingBenchmark};
+ * the gc profiler reports gc.alloc.rate.norm, the bytes allocated per mapped object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private Book book;
+    private BookDto bookDto;
+    private Borrower borrower;
+    private BorrowerDto borrowerDto;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STANDARD)
+                .setFieldMatchingEnabled(true);
+
+        book = new Book();
+        book.setId(UUID.randomUUID());
+        book.setBookTitle(new BookTitle("978-0-7475-3269-9", "Harry Potter", "J.K. Rowling"));
+        book.setVersion(3L);
+
+        bookDto = BookMapper.toDto(book);
+
+        borrower = new Borrower();
+        borrower.setId(UUID.randomUUID());
+        borrower.setName("John Doe");
+        borrower.setEmail("john.doe@example.com");
+
+        borrowerDto = BorrowerMapper.toDto(borrower);
+    }
+
+    @Benchmark
+    public BookDto bookToDtoModelMapper() {
+        return modelMapper.map(book, BookDto.class);
+    }
+
+    @Benchmark
+    public BookDto bookToDtoMapper() {
+        return BookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book bookToEntityBeanUtils() {
+        BookTitle bookTitle = new BookTitle();
+        BeanUtils.copyProperties(bookDto, bookTitle);
+        Book target = new Book();
+        target.setBookTitle(bookTitle);
+        return target;
+    }
+
+    @Benchmark
+    public Book bookToEntityMapper() {
+        return BookMapper.toCopy(BookMapper.toTitle(bookDto));
+    }
+
+    @Benchmark
+    public BorrowerDto borrowerToDtoBeanUtils() {
+        BorrowerDto target = new BorrowerDto();
+        BeanUtils.copyProperties(borrower, target);
+        return target;
+    }
+
+    @Benchmark
+    public BorrowerDto borrowerToDtoMapper() {
+        return BorrowerMapper.toDto(borrower);
+    }
+
+    @Benchmark
+    public Borrower borrowerToEntityBeanUtils() {
+        Borrower target = new Borrower();
+        BeanUtils.copyProperties(borrowerDto, target);
+        return target;
+    }
+
+    @Benchmark
+    public Borrower borrowerToEntityMapper() {
+        return BorrowerMapper.toEntity(borrowerDto);
+    }
+}
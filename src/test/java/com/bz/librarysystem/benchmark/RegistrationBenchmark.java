@@ -0,0 +1,64 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registering one more copy of an ISBN that already has 1, 100 or 1000 copies, which
+ * shows how the ISBN validation cost grows with the number of existing copies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    private static final String ISBN = "978-0-7475-3269-9";
+
+    @Param({"1", "100", "1000"})
+    public int existingCopies;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private JdbcTemplate jdbcTemplate;
+    private Set<UUID> seededCopies;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("registration");
+        libraryService = context.getBean(LibraryService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seededCopies = new HashSet<>(BenchmarkApplication.insertBooks(context, existingCopies, i -> ISBN));
+    }
+
+    // Keeps the copy count at existingCopies instead of letting it grow with every iteration
+    @TearDown(Level.Iteration)
+    public void removeRegisteredCopies() {
+        List<Object[]> registered = jdbcTemplate.queryForList("select id from books", UUID.class).stream()
+                .filter(id -> !seededCopies.contains(id))
+                .map(id -> new Object[]{id})
+                .toList();
+        jdbcTemplate.batchUpdate("delete from books where id = ?", registered);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDto registerBook() {
+        return libraryService.registerBook(new BookDto(null, ISBN, "Title " + ISBN, "Author " + ISBN, null));
+    }
+}
@@ -0,0 +1,64 @@
+package com.bz.librarysystem.benchmark;
+
+import com.bz.librarysystem.dto.BookSearchResultDto;
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.search.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of the in-memory index at 100k and 1M titles (a million copies at ten and at one copy per
+ * ISBN). Titles and authors are drawn from small vocabularies, so common words have postings lists of
+ * tens of thousands of titles and the index does real intersection work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final String[] WORDS = {
+            "shadow", "river", "night", "garden", "empire", "winter", "silver", "secret", "island", "storm",
+            "kingdom", "journey", "forest", "crown", "ocean", "memory", "fire", "glass", "station", "letters",
+            "mountain", "harbor", "stranger", "promise", "machine", "dragon", "summer", "lantern", "echo", "orchard"};
+    private static final String[] NAMES = {
+            "Austen", "Herbert", "Tolkien", "Morrison", "Ishiguro", "Atwood", "Murakami", "Le Guin", "Achebe",
+            "Mantel", "Pratchett", "Adichie", "Calvino", "Borges", "Lessing", "Oates", "Rushdie", "Smith"};
+
+    @Param({"100000", "1000000"})
+    public int titles;
+
+    @Param({"silver", "silver river", "silv", "tolkein kingdom", "herbert empire storm"})
+    public String query;
+
+    private BookSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new BookSearchIndex();
+        List<BookTitle> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < titles; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String author = NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+            chunk.add(new BookTitle("isbn-" + i, title, author));
+            if (chunk.size() == 10_000) {
+                index.addAll(chunk);
+                chunk.clear();
+            }
+        }
+        index.addAll(chunk);
+    }
+
+    @Benchmark
+    public List<BookSearchResultDto> search() {
+        return index.search(query, 20);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bz.librarysystem.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogCacheTest {
+
+    private final CacheConfig.CatalogCache cache =
+            new CacheConfig.CatalogCache("book", Caffeine.newBuilder().build(), false, null, 0);
+
+    @Test
+    void aReadThatMissedBeforeAnEvictionDoesNotCacheItsRows() {
+        Object key = UUID.randomUUID();
+
+        inCall(() -> {
+            assertNull(cache.get(key));
+            cache.evict(UUID.randomUUID());
+            cache.put(key, "before the eviction");
+        });
+        assertNull(cache.get(key));
+
+        inCall(() -> {
+            assertNull(cache.get(key));
+            cache.put(key, "after the eviction");
+        });
+        assertEquals("after the eviction", cache.get(key, String.class));
+    }
+
+    @Test
+    void aCallThatEndsWithoutAPutLeavesNothingBehind() {
+        Object key = UUID.randomUUID();
+
+        inCall(() -> assertNull(cache.get(key)));
+        cache.evict(UUID.randomUUID());
+
+        inCall(() -> {
+            assertNull(cache.get(key));
+            cache.put(key, "loaded");
+        });
+        assertEquals("loaded", cache.get(key, String.class));
+    }
+
+    private static void inCall(Runnable call) {
+        boolean opened = CacheConfig.CatalogCache.openCall();
+        try {
+            call.run();
+        } finally {
+            if (opened) {
+                CacheConfig.CatalogCache.closeCall();
+            }
+        }
+    }
+}
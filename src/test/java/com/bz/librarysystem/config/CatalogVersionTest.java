@@ -0,0 +1,45 @@
+package com.bz.librarysystem.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CatalogVersion catalogVersion =
+            new CatalogVersion(jdbcTemplate, new NoOpCacheManager(), Duration.ofMillis(20));
+
+    @Test
+    void aFailedBumpIsRetriedAndTheTagStaysUnknownUntilItLands() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(7L);
+        when(jdbcTemplate.update(anyString()))
+                .thenThrow(new QueryTimeoutException("catalog_version is locked"))
+                .thenReturn(1);
+
+        catalogVersion.changed();
+        assertNull(catalogVersion.etag("books"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String etag = catalogVersion.etag("books");
+        while (etag == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            etag = catalogVersion.etag("books");
+        }
+        assertEquals("W/\"books-7\"", etag);
+        verify(jdbcTemplate, times(2)).update(anyString());
+    }
+}
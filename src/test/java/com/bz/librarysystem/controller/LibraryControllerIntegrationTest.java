@@ -3,23 +3,29 @@ package com.bz.librarysystem.controller;
 
 import com.bz.librarysystem.LibraryApplication;
 import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookInventoryDto;
+import com.bz.librarysystem.dto.BookPageDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
 import com.bz.librarysystem.dto.BorrowerDto;
-import com.bz.librarysystem.entity.Book;
-import com.bz.librarysystem.entity.Borrower;
-import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.dto.BorrowerRegistrationResultDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanPageDto;
+import com.bz.librarysystem.dto.LoanResultDto;
+import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
 import com.bz.librarysystem.service.LibraryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -30,7 +36,9 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -52,7 +60,7 @@ class LibraryControllerIntegrationTest {
 
     private BorrowerDto borrowerDTO;
 
-    private LoanRecord loanRecord;
+    private LoanDto loan;
 
     private static final UUID TEST_BOOK_UUDI = UUID.randomUUID();
     private static final UUID TEST_BORROWER_UUDI = UUID.randomUUID();
@@ -75,19 +83,8 @@ class LibraryControllerIntegrationTest {
         borrowerDTO.setName("JK Rowling");
         borrowerDTO.setId(TEST_BORROWER_UUDI);
 
-        Borrower borrower = new Borrower();
-        borrower.setId(TEST_BORROWER_UUDI);
-        borrower.setName("Joe Bloggs");
-        borrower.setName("joe@bloggs.com");
-
-        Book book = new Book();
-        BeanUtils.copyProperties(testBookDTO,book);
-
-        loanRecord = new LoanRecord();
-        loanRecord.setId(TEST_LOAN_ID);
-        loanRecord.setBorrower(borrower);
-        loanRecord.setBook(book);
-        loanRecord.setBorrowedAt(borrowDate);
+        loan = new LoanDto(TEST_LOAN_ID, TEST_BOOK_UUDI, testBookDTO.getIsbn(), TEST_BORROWER_UUDI, borrowDate,
+                borrowDate.plusDays(14), null);
     }
 
     @Test
@@ -125,6 +122,131 @@ class LibraryControllerIntegrationTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].isbn").value(testBookDTO.getIsbn()));
     }
 
+    @Test
+    void getAllBooksAnswersMatchingIfNoneMatchWith304WithoutQueryingTest() throws Exception {
+        Mockito.when(libraryService.getAllBooks()).thenReturn(List.of(testBookDTO));
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books").header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", etag))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        Mockito.verify(libraryService, Mockito.times(1)).getAllBooks();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books").header("If-None-Match", "W/\"stale\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void getBookEtagFollowsTheVersionTest() throws Exception {
+        testBookDTO.setVersion(3L);
+        Mockito.when(libraryService.getBook(TEST_BOOK_UUDI)).thenReturn(testBookDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/{bookId}", TEST_BOOK_UUDI)
+                        .header("If-None-Match", "W/\"book-" + TEST_BOOK_UUDI + "-3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        testBookDTO.setVersion(4L);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/{bookId}", TEST_BOOK_UUDI)
+                        .header("If-None-Match", "W/\"book-" + TEST_BOOK_UUDI + "-3\""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"book-" + TEST_BOOK_UUDI + "-4\""));
+    }
+
+    @Test
+    void testRegisterBooks() throws Exception {
+        Mockito.when(libraryService.registerBooks(any()))
+                .thenReturn(List.of(
+                        BookRegistrationResultDto.registered(0, testBookDTO),
+                        BookRegistrationResultDto.rejected(1, testBookDTO, "conflict")));
+
+        ResultActions resultActions = mockMvc.perform(post("/api/v1/library/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testBookDTO, testBookDTO))));
+
+        resultActions.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("REGISTERED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].book.isbn").value(testBookDTO.getIsbn()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("conflict"));
+    }
+
+    @Test
+    void testGetBook() throws Exception {
+        Mockito.when(libraryService.getBook(testBookDTO.getId())).thenReturn(testBookDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/{bookId}", testBookDTO.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(testBookDTO.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.isbn").value(testBookDTO.getIsbn()));
+    }
+
+    @Test
+    void testGetBooksByIsbn() throws Exception {
+        Mockito.when(libraryService.getBooksByIsbn(testBookDTO.getIsbn())).thenReturn(List.of(testBookDTO));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/isbn/{isbn}", testBookDTO.getIsbn()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(testBookDTO.getId().toString()));
+    }
+
+    @Test
+    void testGetBooksPage() throws Exception {
+        Mockito.when(libraryService.getBooksPage("abc", 10))
+                .thenReturn(new BookPageDto(List.of(testBookDTO), "next"));
+
+        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/page")
+                .param("cursor", "abc")
+                .param("limit", "10"));
+
+        resultActions.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(testBookDTO.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAllBooks() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            consumer.accept(testBookDTO);
+            consumer.accept(testBookDTO);
+            return null;
+        }).when(libraryService).streamAllBooks(any());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/stream"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(testBookDTO, objectMapper.readValue(lines[1], BookDto.class));
+    }
+
+    @Test
+    void testGetInventory() throws Exception {
+        Mockito.when(libraryService.getBookInventory("1234567890", null, 0, 100))
+                .thenReturn(List.of(new BookInventoryDto("1234567890", "Sample Book", "John Doe", 3, 1)));
+
+        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/inventory")
+                .param("isbn", "1234567890"));
+
+        resultActions.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].isbn").value("1234567890"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].numberOfCopies").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].available").value(1));
+    }
+
     @Test
     void registerBorrowerTest() throws Exception {
         // Act
@@ -145,7 +267,7 @@ class LibraryControllerIntegrationTest {
     void borrowBookTest() throws Exception {
         // Arrange
         Mockito.when(libraryService.borrowBook(any(UUID.class),any(UUID.class)))
-                .thenReturn(loanRecord);
+                .thenReturn(loan);
 
         ResultActions resultActions = mockMvc.perform(post("/api/v1/library/books/{bookId}/borrow/{borrowerId}", TEST_BOOK_UUDI, TEST_BORROWER_UUDI)
                 .contentType(MediaType.APPLICATION_JSON));
@@ -154,13 +276,14 @@ class LibraryControllerIntegrationTest {
 
 
         resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(loanRecord.getId().toString()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.book.id").value(TEST_BOOK_UUDI.toString()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.book.isbn").value("1234567890"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.book.title").value("Sample Book"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.borrower.id").value(TEST_BORROWER_UUDI.toString()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.borrower.name").value("joe@bloggs.com"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.borrowedAt").value(Matchers.startsWith(loanRecord.getBorrowedAt().toString().substring(0, 23))))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.loanId").value(TEST_LOAN_ID.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.bookId").value(TEST_BOOK_UUDI.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.isbn").value("1234567890"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.borrowerId").value(TEST_BORROWER_UUDI.toString()))
+                // Flat ids only, no nested entities
+                .andExpect(MockMvcResultMatchers.jsonPath("$.book").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.borrower").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.borrowedAt").value(Matchers.startsWith(loan.getBorrowedAt().toString().substring(0, 23))))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.borrowedAt").value(borrowDateString))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.returnedAt").isEmpty());
 
@@ -168,5 +291,95 @@ class LibraryControllerIntegrationTest {
         Mockito.verify(libraryService, Mockito.times(1)).borrowBook(TEST_BOOK_UUDI, TEST_BORROWER_UUDI);
 
     }
-}
 
+    @Test
+    void borrowBookConflictReportsErrorTypeTest() throws Exception {
+        Mockito.when(libraryService.borrowBook(any(UUID.class), any(UUID.class)))
+                .thenThrow(new BookAlreadyBorrowedException("Book is already borrowed"));
+
+        mockMvc.perform(post("/api/v1/library/books/{bookId}/borrow/{borrowerId}", TEST_BOOK_UUDI, TEST_BORROWER_UUDI))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.header().string("X-Error-Type", "BookAlreadyBorrowedException"))
+                .andExpect(MockMvcResultMatchers.content().string("Book is already borrowed"));
+    }
+
+    @Test
+    void borrowBooksReportsEachItemTest() throws Exception {
+        UUID missingBookId = UUID.randomUUID();
+        Mockito.when(libraryService.borrowBooks(TEST_BORROWER_UUDI, List.of(TEST_BOOK_UUDI, missingBookId), true))
+                .thenReturn(List.of(LoanResultDto.borrowed(0, loan),
+                        LoanResultDto.rejected(1, missingBookId, "Book not found")));
+
+        mockMvc.perform(post("/api/v1/library/books/borrow/{borrowerId}", TEST_BORROWER_UUDI)
+                        .param("allOrNothing", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(TEST_BOOK_UUDI, missingBookId))))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("BORROWED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].loan.loanId").value(TEST_LOAN_ID.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].bookId").value(missingBookId.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("Book not found"));
+    }
+
+    @Test
+    void returnBooksDefaultsToPerItemOutcomesTest() throws Exception {
+        Mockito.when(libraryService.returnBooks(List.of(TEST_BOOK_UUDI), false))
+                .thenReturn(List.of(LoanResultDto.returned(0, loan)));
+
+        mockMvc.perform(post("/api/v1/library/books/return")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(TEST_BOOK_UUDI))))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("RETURNED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].bookId").value(TEST_BOOK_UUDI.toString()));
+    }
+
+    @Test
+    void getBorrowerLoansTest() throws Exception {
+        Mockito.when(libraryService.getBorrowerLoans(TEST_BORROWER_UUDI, "abc", 10))
+                .thenReturn(new LoanPageDto(List.of(loan), "def"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/borrowers/{borrowerId}/loans", TEST_BORROWER_UUDI)
+                        .param("cursor", "abc")
+                        .param("limit", "10"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].loanId").value(TEST_LOAN_ID.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    void importBorrowersAcceptsCsvUploadTest() throws Exception {
+        Mockito.when(libraryService.registerBorrowers(Mockito.anyList()))
+                .thenReturn(List.of(BorrowerRegistrationResultDto.registered(0, borrowerDTO)));
+
+        mockMvc.perform(post("/api/v1/library/import/borrowers")
+                        .contentType("text/csv")
+                        .content("name,email\nJK Rowling,jg@gmail.com\n"))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("Location",
+                        Matchers.startsWith("/api/v1/library/import/")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.target").value("borrowers"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.format").value("CSV"));
+    }
+
+    @Test
+    void importBooksWithoutRequiredColumnsIsRejectedTest() throws Exception {
+        mockMvc.perform(post("/api/v1/library/import/books")
+                        .contentType("text/csv")
+                        .content("isbn,title\n1234567890,Sample Book\n"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.header().string("X-Error-Type", "InvalidImportFileException"));
+    }
+
+    @Test
+    void searchBooksTest() throws Exception {
+        Mockito.when(libraryService.searchBooks("sample", null))
+                .thenReturn(List.of(new BookSearchResultDto("1234567890", "Sample Book", "John Doe", 2.5)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/library/books/search").param("q", "sample"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].isbn").value("1234567890"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].score").value(2.5));
+    }
+}
@@ -1,7 +1,9 @@
 package com.bz.librarysystem.controller;
 
+import com.bz.librarysystem.config.CatalogVersion;
 import com.bz.librarysystem.dto.BookDto;
 import com.bz.librarysystem.service.LibraryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +13,8 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,6 +30,9 @@ class LibraryControllerTest {
     @Mock
     private LibraryService libraryService;
 
+    @Mock
+    private CatalogVersion catalogVersion;
+
     @InjectMocks
     private LibraryController _underTestController;
 
@@ -35,7 +42,7 @@ class LibraryControllerTest {
     void setUp() {
 
         MockitoAnnotations.openMocks(this); // Initialize mocks
-        _underTestController = new LibraryController(libraryService);
+        _underTestController = new LibraryController(libraryService, new ObjectMapper(), catalogVersion);
 
         mockBookDTO = new BookDto(
                 UUID.randomUUID(),
@@ -66,12 +73,14 @@ class LibraryControllerTest {
 
         List<BookDto> mockBooks = Collections.singletonList(mockBookDTO);
         when(libraryService.getAllBooks()).thenReturn(mockBooks);
+        when(catalogVersion.etag("books")).thenReturn("W/\"books-1\"");
 
         System.out.println("Mocked BookDTO: " + mockBookDTO);
         System.out.println("Mocked Books: " + mockBooks);
 
         // Call the controller method
-        ResponseEntity<List<BookDto>> responseEntity = _underTestController.getAllBooks();
+        ResponseEntity<List<BookDto>> responseEntity = _underTestController.getAllBooks(
+                new ServletWebRequest(new MockHttpServletRequest()));
 
         System.out.println("Controller Response: " + responseEntity.getBody());
 
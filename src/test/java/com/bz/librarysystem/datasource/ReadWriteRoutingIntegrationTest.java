@@ -0,0 +1,147 @@
+package com.bz.librarysystem.datasource;
+
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BookTitleRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. Nothing replicates between them, so a book that only
+ * the replica holds shows which one a read went to.
+ */
+@SpringBootTest(properties = {
+        "library.datasource.replicas=" + ReadWriteRoutingIntegrationTest.REPLICA_URL,
+        "library.datasource.replica-lag-query=select seconds from replica_lag",
+        "library.datasource.health-check-interval=1h"})
+@AutoConfigureMockMvc
+class ReadWriteRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:library-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica =
+            new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    // Runs before the context starts, so the replica passes its first health check
+    static {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "password")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        replica.execute("create table if not exists replica_lag (seconds int)");
+        replica.execute("delete from replica_lag");
+        replica.update("insert into replica_lag values (0)");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTitleRepository bookTitleRepository;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @AfterEach
+    void tearDown() {
+        DataSourceRouting.reset();
+        replica.update("update replica_lag set seconds = 0");
+        replicaPool.checkAll();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaAndWritesToThePrimary() {
+        UUID replicaOnly = insertIntoReplica();
+
+        assertTrue(bookRepository.findById(replicaOnly).isPresent());
+
+        String isbn = isbn();
+        bookTitleRepository.save(new BookTitle(isbn, "Dune", "Frank Herbert"));
+        assertTrue(replica.queryForList("select isbn from book_titles where isbn = ?", isbn).isEmpty());
+    }
+
+    @Test
+    void aWriteSendsTheRestOfTheRequestToThePrimary() throws Exception {
+        UUID replicaOnly = insertIntoReplica();
+
+        DataSourceRouting.beginRequest();
+        try {
+            bookTitleRepository.save(new BookTitle(isbn(), "Dune", "Frank Herbert"));
+
+            assertFalse(bookRepository.findById(replicaOnly).isPresent());
+        } finally {
+            DataSourceRouting.endRequest();
+        }
+        // A new request starts on the replica again
+        mockMvc.perform(get("/api/v1/library/books/{bookId}", replicaOnly)).andExpect(status().isOk());
+    }
+
+    @Test
+    void outsideARequestAWritePinsOnlyItsOwnTransaction() {
+        UUID replicaOnly = insertIntoReplica();
+
+        bookTitleRepository.save(new BookTitle(isbn(), "Dune", "Frank Herbert"));
+
+        assertFalse(DataSourceRouting.isPrimaryForced());
+        assertTrue(bookRepository.findById(replicaOnly).isPresent());
+    }
+
+    @Test
+    void onPrimaryKeepsThePinOfAWriteInsideIt() {
+        UUID replicaOnly = insertIntoReplica();
+
+        DataSourceRouting.beginRequest();
+        try {
+            assertFalse(DataSourceRouting.onPrimary(() -> bookRepository.findById(replicaOnly)).isPresent());
+            assertTrue(bookRepository.findById(replicaOnly).isPresent());
+
+            DataSourceRouting.onPrimary(() -> bookTitleRepository.save(new BookTitle(isbn(), "Dune", "Frank Herbert")));
+            assertFalse(bookRepository.findById(replicaOnly).isPresent());
+        } finally {
+            DataSourceRouting.endRequest();
+        }
+    }
+
+    @Test
+    void aLaggingReplicaIsTakenOutOfRotationUntilItCatchesUp() {
+        UUID replicaOnly = insertIntoReplica();
+
+        replica.update("update replica_lag set seconds = 60");
+        replicaPool.checkAll();
+        assertFalse(bookRepository.findById(replicaOnly).isPresent());
+
+        replica.update("update replica_lag set seconds = 0");
+        replicaPool.checkAll();
+        assertTrue(bookRepository.findById(replicaOnly).isPresent());
+    }
+
+    private static UUID insertIntoReplica() {
+        String isbn = isbn();
+        UUID bookId = UUID.randomUUID();
+        replica.update("insert into book_titles (isbn, title, author, version) values (?, 'Emma', 'Jane Austen', 0)", isbn);
+        replica.update("insert into books (id, isbn, version, is_borrowed) values (?, ?, 0, false)", bookId, isbn);
+        return bookId;
+    }
+
+    private static String isbn() {
+        return "978-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
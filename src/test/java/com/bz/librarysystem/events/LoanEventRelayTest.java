@@ -0,0 +1,125 @@
+package com.bz.librarysystem.events;
+
+import com.bz.librarysystem.dto.LoanEventDto;
+import com.bz.librarysystem.entity.LoanEvent;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanEventRelayTest {
+
+    private final LoanEventRepository repository = mock(LoanEventRepository.class);
+    private final LoanEventStream stream = new LoanEventStream(repository, 16, 1, Duration.ofMinutes(1));
+
+    @Test
+    void buffer_DropsOldestAndRaisesTheFloor() {
+        LoanEventBuffer buffer = new LoanEventBuffer(3);
+        buffer.startAt(10);
+        for (long offset : new long[]{11, 12, 14, 15}) {
+            buffer.append(dto(offset));
+        }
+
+        assertEquals(11, buffer.floor());
+        assertEquals(15, buffer.watermark());
+        assertNull(buffer.after(10, 10));
+        assertEquals(List.of(12L, 14L, 15L), offsets(buffer.after(11, 10)));
+        assertEquals(List.of(14L), offsets(buffer.after(13, 1)));
+        assertEquals(List.of(), buffer.after(15, 10));
+    }
+
+    @Test
+    void buffer_InsertsALateEventInOffsetOrder() {
+        LoanEventBuffer buffer = new LoanEventBuffer(3);
+        buffer.startAt(10);
+        for (long offset : new long[]{11, 13, 15}) {
+            buffer.append(dto(offset));
+        }
+
+        buffer.insert(dto(14));
+        buffer.insert(dto(12));
+        buffer.insert(dto(10));
+
+        assertEquals(12, buffer.floor());
+        assertEquals(15, buffer.watermark());
+        assertNull(buffer.after(11, 10));
+        assertEquals(List.of(13L, 14L, 15L), offsets(buffer.after(12, 10)));
+    }
+
+    @Test
+    void relay_HoldsEventsBackBehindAHoleUntilItFills() {
+        LoanEventRelay relay = relay(Duration.ofHours(1));
+        returning(event(1), event(3));
+        assertEquals(1, relay.relay());
+
+        // Id 2 belongs to a transaction that has not committed yet
+        returning(event(3));
+        assertEquals(0, relay.relay());
+        assertEquals(1, stream.watermark());
+
+        returning(event(2), event(3));
+        assertEquals(2, relay.relay());
+        assertEquals(3, stream.watermark());
+    }
+
+    @Test
+    void relay_SkipsAHoleOnceTheGapTimeoutPassed() {
+        LoanEventRelay relay = relay(Duration.ZERO);
+        returning(event(1), event(4));
+
+        assertEquals(2, relay.relay());
+        assertEquals(4, stream.watermark());
+    }
+
+    @Test
+    void relay_PublishesASkippedEventThatCommitsLate() {
+        LoanEventRelay relay = relay(Duration.ZERO);
+        returning(event(1), event(3));
+        assertEquals(2, relay.relay());
+
+        when(repository.findAllById(any())).thenReturn(List.of(event(2)));
+        assertEquals(1, relay.relay());
+        assertEquals(3, stream.watermark());
+
+        // Published once, so no longer looked up
+        assertEquals(0, relay.relay());
+    }
+
+    private LoanEventRelay relay(Duration gapTimeout) {
+        stream.startAt(0);
+        return new LoanEventRelay(repository, stream, Duration.ofMillis(100), gapTimeout, Duration.ofHours(1),
+                Duration.ofSeconds(15), Duration.ofDays(7));
+    }
+
+    private void returning(LoanEvent... events) {
+        when(repository.findAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return Arrays.stream(events).filter(event -> event.getId() > after).toList();
+        });
+    }
+
+    private static LoanEvent event(long id) {
+        return new LoanEvent(id, LoanEvent.Type.BORROWED, UUID.randomUUID(), "111", UUID.randomUUID(),
+                LocalDateTime.now());
+    }
+
+    private static LoanEventDto dto(long offset) {
+        return new LoanEventDto(offset, LoanEvent.Type.RETURNED, UUID.randomUUID(), "111", UUID.randomUUID(),
+                LocalDateTime.now());
+    }
+
+    private static List<Long> offsets(List<LoanEventDto> events) {
+        return events.stream().map(LoanEventDto::getOffset).toList();
+    }
+}
@@ -0,0 +1,161 @@
+package com.bz.librarysystem.events;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import com.bz.librarysystem.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A short gap timeout, so the id taken by the rolled-back borrow does not hold the stream back for long
+@SpringBootTest(properties = "library.events.gap-timeout=200ms")
+@AutoConfigureMockMvc
+class LoanEventStreamIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanEventRepository loanEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void streamsCommittedLoanEventsAfterTheResumeOffset() throws Exception {
+        BookDto book = libraryService.registerBook(
+                new BookDto(null, "978-" + UUID.randomUUID().toString().substring(0, 8), "Dune", "Frank Herbert", null));
+        UUID borrowerId = saveBorrower().getId();
+        long offset = loanEventRepository.findMaxId();
+
+        MvcResult stream = mockMvc.perform(get("/api/v1/library/events").header("Last-Event-ID", offset))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            libraryService.borrowBook(book.getId(), borrowerId);
+            status.setRollbackOnly();
+        });
+        libraryService.borrowBook(book.getId(), borrowerId);
+        libraryService.returnBook(book.getId());
+
+        String content = awaitEvents(stream, book.getId(), 2);
+        Matcher events = eventsOf(book.getId()).matcher(content);
+        assertTrue(events.find());
+        long borrowedOffset = Long.parseLong(events.group(1));
+        assertEquals("borrowed", events.group(2));
+        assertTrue(events.find());
+        assertEquals("returned", events.group(2));
+        assertTrue(borrowedOffset > offset);
+        assertTrue(Long.parseLong(events.group(1)) > borrowedOffset);
+        assertFalse(events.find());
+    }
+
+    @Test
+    void streamsAnEventThatCommitsAfterTheGapTimeoutWithoutAnId() throws Exception {
+        BookDto late = libraryService.registerBook(
+                new BookDto(null, "978-" + UUID.randomUUID().toString().substring(0, 8), "Emma", "Jane Austen", null));
+        BookDto onTime = libraryService.registerBook(
+                new BookDto(null, "978-" + UUID.randomUUID().toString().substring(0, 8), "Ulysses", "Joyce", null));
+        UUID lateBorrowerId = saveBorrower().getId();
+        UUID onTimeBorrowerId = saveBorrower().getId();
+        long offset = loanEventRepository.findMaxId();
+
+        MvcResult stream = mockMvc.perform(get("/api/v1/library/events").header("Last-Event-ID", offset))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // The late borrow takes its event id first and holds its transaction open past the gap timeout
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread borrower = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            libraryService.borrowBook(late.getId(), lateBorrowerId);
+            inserted.countDown();
+            awaitQuietly(commit);
+        }));
+        borrower.start();
+        try {
+            assertTrue(inserted.await(10, TimeUnit.SECONDS));
+            libraryService.borrowBook(onTime.getId(), onTimeBorrowerId);
+            assertTrue(eventsOf(onTime.getId()).matcher(awaitEvents(stream, onTime.getId(), 1)).find());
+        } finally {
+            commit.countDown();
+            borrower.join();
+        }
+
+        Pattern withoutId = Pattern.compile("(^|\n\n)event:borrowed\ndata:\\{[^\n]*\"bookId\":\""
+                + late.getId() + "\"");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!withoutId.matcher(stream.getResponse().getContentAsString()).find()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        String content = stream.getResponse().getContentAsString();
+        assertTrue(withoutId.matcher(content).find(), content);
+        assertFalse(eventsOf(late.getId()).matcher(content).find());
+    }
+
+    @Test
+    void rejectsANegativeOffset() throws Exception {
+        mockMvc.perform(get("/api/v1/library/events").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String awaitEvents(MvcResult stream, UUID bookId, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String content = stream.getResponse().getContentAsString();
+            Matcher events = eventsOf(bookId).matcher(content);
+            int count = 0;
+            while (events.find()) {
+                count++;
+            }
+            if (count >= expected || System.currentTimeMillis() > deadline) {
+                return content;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Pattern eventsOf(UUID bookId) {
+        return Pattern.compile("id:(\\d+)\nevent:(\\w+)\ndata:\\{[^\n]*\"bookId\":\"" + bookId + "\"");
+    }
+
+    private Borrower saveBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Listener");
+        borrower.setEmail("events-" + UUID.randomUUID() + "@example.com");
+        return borrowerRepository.save(borrower);
+    }
+}
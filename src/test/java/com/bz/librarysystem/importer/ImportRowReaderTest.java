@@ -0,0 +1,73 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.exception.InvalidImportFileException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportRowReaderTest {
+
+    @Test
+    void csv_HandlesQuotesEscapesAndMultiLineFields() throws IOException {
+        String csv = "ISBN, Title ,author\r\n"
+                + "111,\"Dune, Part One\",Frank Herbert\r\n"
+                + "\r\n"
+                + "222,\"The \"\"Quoted\"\" Title\",\"Two\nLines\"\n"
+                + "333,,\n";
+        ImportRowReader reader = new ImportRowReader(new StringReader(csv), ImportFormat.CSV);
+
+        assertEquals(List.of("isbn", "title", "author"), reader.header());
+        List<SourceRow> rows = reader.next(10);
+
+        assertEquals(3, rows.size());
+        assertEquals(List.of("111", "Dune, Part One", "Frank Herbert"), rows.get(0).fields());
+        assertEquals(2, rows.get(0).line());
+        assertEquals(List.of("222", "The \"Quoted\" Title", "Two\nLines"), rows.get(1).fields());
+        assertEquals(4, rows.get(1).line());
+        assertEquals("222,\"The \"\"Quoted\"\" Title\",\"Two\nLines\"", rows.get(1).text());
+        assertEquals(List.of("333", "", ""), rows.get(2).fields());
+        assertEquals(6, rows.get(2).line());
+        assertTrue(reader.next(10).isEmpty());
+    }
+
+    @Test
+    void csv_ReadsInBatches() throws IOException {
+        ImportRowReader reader = new ImportRowReader(new StringReader("name,email\na,1\nb,2\nc,3"), ImportFormat.CSV);
+
+        assertEquals(2, reader.next(2).size());
+        assertEquals(List.of("c", "3"), reader.next(2).get(0).fields());
+        assertTrue(reader.next(2).isEmpty());
+    }
+
+    @Test
+    void csv_UnterminatedQuoteFailsTheFile() throws IOException {
+        ImportRowReader reader = new ImportRowReader(new StringReader("name,email\n\"a,1\nb,2\n"), ImportFormat.CSV);
+
+        assertThrows(InvalidImportFileException.class, () -> reader.next(10));
+    }
+
+    @Test
+    void csv_RecordLongerThanTheLimitFailsTheFile() throws IOException {
+        String record = "\"" + "x".repeat(ImportRowReader.MAX_RECORD_LENGTH + 1) + "\"";
+        ImportRowReader reader = new ImportRowReader(new StringReader("name\n" + record), ImportFormat.CSV);
+
+        assertThrows(InvalidImportFileException.class, reader::next);
+    }
+
+    @Test
+    void jsonl_ReturnsOneRowPerNonBlankLine() throws IOException {
+        String jsonl = "{\"isbn\":\"111\"}\r\n\n  \n{\"isbn\":\"222\"}";
+        ImportRowReader reader = new ImportRowReader(new StringReader(jsonl), ImportFormat.JSONL);
+
+        List<SourceRow> rows = reader.next(10);
+
+        assertEquals(2, rows.size());
+        assertEquals("{\"isbn\":\"111\"}", rows.get(0).text());
+        assertEquals(1, rows.get(0).line());
+        assertEquals(4, rows.get(1).line());
+    }
+}
@@ -0,0 +1,159 @@
+package com.bz.librarysystem.importer;
+
+import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.ImportJobDto;
+import com.bz.librarysystem.exception.InvalidImportFileException;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.service.LibraryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ImportServiceTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @TempDir
+    private Path directory;
+
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        // Batches of two with one waiting batch, so every upload crosses several batches and the backpressure path
+        importService = new ImportService(libraryService, objectMapper, validator, directory.toString(), 2, 1, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.stop();
+    }
+
+    @Test
+    void importBooks_Csv_ImportsValidRowsAndReportsTheRest() throws Exception {
+        String isbn = uniqueIsbn();
+        String otherIsbn = uniqueIsbn();
+        String csv = "isbn,title,author\n"
+                + isbn + ",Dune,Frank Herbert\n"
+                + isbn + ",Dune,Frank Herbert\n"
+                + isbn + ",Dune Messiah,Frank Herbert\n"
+                + otherIsbn + ",,Nobody\n"
+                + otherIsbn + ",Emma\n"
+                + otherIsbn + ",Emma,Jane Austen\n";
+
+        ImportJobDto job = awaitFinished(importService.importBooks(ImportFormat.CSV, upload(csv)));
+
+        assertEquals(ImportJobDto.Status.COMPLETED, job.getStatus());
+        assertEquals(6, job.getRowsRead());
+        assertEquals(3, job.getImported());
+        assertEquals(3, job.getRejected());
+        assertEquals(2, libraryService.getBooksByIsbn(isbn).size());
+        assertEquals(1, libraryService.getBooksByIsbn(otherIsbn).size());
+
+        List<String> errors = Files.readAllLines(importService.getErrorFile(job.getId()));
+        assertEquals("line,error,record", errors.get(0));
+        assertEquals(4, errors.size());
+        assertTrue(errors.get(1).startsWith("4,\"Books with ISBN " + isbn + " must have title 'Dune'"));
+        assertTrue(errors.get(2).startsWith("5,\"Title is required\""));
+        assertTrue(errors.get(3).startsWith("6,\"Expected 3 fields but found 2\""));
+    }
+
+    @Test
+    void importBorrowers_Jsonl_RejectsTakenAndRepeatedEmails() throws Exception {
+        String taken = uniqueEmail();
+        libraryService.registerBorrowers(List.of(new BorrowerDto(null, taken, "Stored")));
+        String fresh = uniqueEmail();
+        String jsonl = "{\"name\":\"Taken\",\"email\":\"" + taken + "\"}\n"
+                + "{\"name\":\"Fresh\",\"email\":\"" + fresh + "\"}\n"
+                + "{\"name\":\"Repeated\",\"email\":\"" + fresh + "\"}\n"
+                + "{\"name\":\"Invalid\",\"email\":\"not-an-email\"}\n"
+                + "{\"name\":\n";
+
+        ImportJobDto job = awaitFinished(importService.importBorrowers(ImportFormat.JSONL, upload(jsonl)));
+
+        assertEquals(ImportJobDto.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getImported());
+        assertEquals(4, job.getRejected());
+        assertEquals("Fresh", borrowerRepository.findByEmail(fresh).orElseThrow().getName());
+
+        List<String> errors = Files.readAllLines(importService.getErrorFile(job.getId()));
+        assertTrue(errors.get(1).startsWith("1,\"Borrower with this email already exists\""));
+        assertTrue(errors.get(2).startsWith("3,\"Borrower with this email already exists\""));
+        assertTrue(errors.get(3).startsWith("4,\"Email should be valid\""));
+        assertTrue(errors.get(4).startsWith("5,\"Malformed JSON"));
+    }
+
+    @Test
+    void importBooks_MissingColumns_IsRejectedBeforeTheJobStarts() throws IOException {
+        assertThrows(InvalidImportFileException.class,
+                () -> importService.importBooks(ImportFormat.CSV, upload("isbn,title\n1,Dune\n")));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void importBooks_BrokenFile_FailsTheJobAndKeepsEarlierBatches() throws Exception {
+        String isbn = uniqueIsbn();
+        String csv = "isbn,title,author\n"
+                + isbn + ",Dune,Frank Herbert\n"
+                + isbn + ",Dune,Frank Herbert\n"
+                + isbn + ",\"Dune,Frank Herbert\n";
+
+        ImportJobDto job = awaitFinished(importService.importBooks(ImportFormat.CSV, upload(csv)));
+
+        assertEquals(ImportJobDto.Status.FAILED, job.getStatus());
+        assertTrue(job.getError().startsWith("Unterminated quoted field"));
+        assertEquals(2, libraryService.getBooksByIsbn(isbn).size());
+    }
+
+    private ImportJobDto awaitFinished(ImportJobDto submitted) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        ImportJobDto job = importService.getJob(submitted.getId());
+        while (job.getFinishedAt() == null) {
+            assertTrue(System.nanoTime() < deadline, "Import did not finish in time");
+            Thread.sleep(20);
+            job = importService.getJob(submitted.getId());
+        }
+        return job;
+    }
+
+    private static ByteArrayInputStream upload(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String uniqueIsbn() {
+        return "978-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static String uniqueEmail() {
+        return UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+    }
+}
@@ -0,0 +1,89 @@
+package com.bz.librarysystem.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The data the load mixes pick from. Seeded with JDBC batches before the first mix runs so the
+ * HTTP phase measures only the traffic under test.
+ */
+final class LoadCatalog {
+
+    static final int COPIES_PER_ISBN = 10;
+    static final int INVENTORY_PAGE_SIZE = 100;
+
+    private static final int SEED_BATCH = 10_000;
+
+    private final List<String> isbns;
+    private final List<UUID> popularCopies;
+    private final List<UUID> borrowers;
+
+    private LoadCatalog(List<String> isbns, List<UUID> popularCopies, List<UUID> borrowers) {
+        this.isbns = isbns;
+        this.popularCopies = popularCopies;
+        this.borrowers = borrowers;
+    }
+
+    /**
+     * Inserts {@code books} copies spread over ISBNs of {@link #COPIES_PER_ISBN} copies each; the
+     * copies of the first {@code popularIsbns} ISBNs are the targets of the borrow storm.
+     */
+    static LoadCatalog seed(ConfigurableApplicationContext context, int books, int borrowerCount, int popularIsbns) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<String> isbns = new ArrayList<>();
+        List<UUID> popularCopies = new ArrayList<>();
+        List<Object[]> titles = new ArrayList<>(SEED_BATCH);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < books; i++) {
+            int isbnIndex = i / COPIES_PER_ISBN;
+            String isbn = String.format("978%010d", isbnIndex);
+            if (i % COPIES_PER_ISBN == 0) {
+                isbns.add(isbn);
+                titles.add(new Object[]{isbn, "Title " + isbn, "Author " + isbnIndex % 500});
+            }
+            UUID id = UUID.randomUUID();
+            if (isbnIndex < popularIsbns) {
+                popularCopies.add(id);
+            }
+            batch.add(new Object[]{id, isbn});
+            if (batch.size() == SEED_BATCH || i == books - 1) {
+                jdbcTemplate.batchUpdate("insert into book_titles (isbn, title, author, version) values (?, ?, ?, 0)",
+                        titles);
+                jdbcTemplate.batchUpdate("insert into books (id, isbn, version, is_borrowed) values (?, ?, 0, false)",
+                        batch);
+                titles.clear();
+                batch.clear();
+            }
+        }
+
+        List<UUID> borrowers = new ArrayList<>(borrowerCount);
+        for (int i = 0; i < borrowerCount; i++) {
+            UUID id = UUID.randomUUID();
+            borrowers.add(id);
+            batch.add(new Object[]{id, "Borrower " + i, "loadtest" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into borrowers (id, name, email) values (?, ?, ?)", batch);
+        return new LoadCatalog(List.copyOf(isbns), List.copyOf(popularCopies), List.copyOf(borrowers));
+    }
+
+    String randomIsbn(ThreadLocalRandom random) {
+        return isbns.get(random.nextInt(isbns.size()));
+    }
+
+    int inventoryPages() {
+        return Math.max(1, (isbns.size() + INVENTORY_PAGE_SIZE - 1) / INVENTORY_PAGE_SIZE);
+    }
+
+    UUID randomPopularCopy(ThreadLocalRandom random) {
+        return popularCopies.get(random.nextInt(popularCopies.size()));
+    }
+
+    UUID randomBorrower(ThreadLocalRandom random) {
+        return borrowers.get(random.nextInt(borrowers.size()));
+    }
+}
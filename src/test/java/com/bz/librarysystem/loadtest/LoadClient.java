@@ -0,0 +1,96 @@
+package com.bz.librarysystem.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Thin HTTP client over {@code /api/v1/library} that times every request into a {@link LoadRecorder}.
+ * Failed requests are classified by the {@code X-Error-Type} header the exception handler sets,
+ * falling back to the HTTP status or the client-side exception.
+ */
+final class LoadClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUri;
+    private final LoadRecorder recorder;
+
+    LoadClient(HttpClient http, String baseUri, LoadRecorder recorder) {
+        this.http = http;
+        this.baseUri = baseUri;
+        this.recorder = recorder;
+    }
+
+    Response get(String operation, String path) {
+        return send(operation, request(path).GET().build());
+    }
+
+    Response post(String operation, String path, String json) {
+        HttpRequest.BodyPublisher body = json == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json);
+        return send(operation, request(path)
+                .header("Content-Type", "application/json")
+                .POST(body)
+                .build());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private Response send(String operation, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+            if (response.statusCode() / 100 == 2) {
+                recorder.success(operation, elapsed);
+            } else {
+                String errorType = response.headers().firstValue("X-Error-Type")
+                        .orElse("HTTP " + response.statusCode());
+                recorder.failure(operation, elapsed, errorType);
+            }
+            return new Response(response.statusCode(), response.body());
+        } catch (IOException e) {
+            recorder.failure(operation, System.nanoTime() - start, e.getClass().getSimpleName());
+            return new Response(-1, "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(-1, "");
+        }
+    }
+
+    static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean ok() {
+            return status / 100 == 2;
+        }
+
+        JsonNode json() {
+            try {
+                return MAPPER.readTree(body);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bz.librarysystem.loadtest;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The traffic patterns the load test can drive. Each call to {@link #execute} is one iteration of
+ * a closed-loop worker and may issue several requests, each timed under its own operation name.
+ */
+enum LoadMix {
+
+    CATALOG("catalog", "Read-heavy browsing: 60% keyset pages, 30% inventory pages, 10% inventory by ISBN") {
+        @Override
+        void execute(LoadClient client, Worker worker, LoadCatalog catalog, ThreadLocalRandom random) {
+            int roll = random.nextInt(100);
+            if (roll < 60) {
+                String query = worker.cursor == null ? "?limit=50" : "?limit=50&cursor=" + worker.cursor;
+                LoadClient.Response page = client.get("books.page", "/books/page" + query);
+                worker.cursor = page.ok() ? page.json().path("nextCursor").textValue() : null;
+            } else if (roll < 90) {
+                client.get("books.inventory", "/books/inventory?size=" + LoadCatalog.INVENTORY_PAGE_SIZE
+                        + "&page=" + random.nextInt(catalog.inventoryPages()));
+            } else {
+                client.get("books.inventory.isbn", "/books/inventory?isbn=" + catalog.randomIsbn(random));
+            }
+        }
+    },
+
+    BORROW_STORM("borrow-storm", "Every worker borrows and returns the copies of a few popular ISBNs") {
+        @Override
+        void execute(LoadClient client, Worker worker, LoadCatalog catalog, ThreadLocalRandom random) {
+            UUID bookId = catalog.randomPopularCopy(random);
+            UUID borrowerId = catalog.randomBorrower(random);
+            if (client.post("books.borrow", "/books/" + bookId + "/borrow/" + borrowerId, null).ok()) {
+                client.post("books.return", "/books/" + bookId + "/return", null);
+            }
+        }
+    },
+
+    CIRCULATION("circulation", "Register a new copy, borrow it and return it") {
+        @Override
+        void execute(LoadClient client, Worker worker, LoadCatalog catalog, ThreadLocalRandom random) {
+            // Cycle through a bounded set of ISBNs per worker so registrations also exercise the
+            // "existing copies" validation path instead of only ever creating new titles.
+            String isbn = "LT-" + worker.id + "-" + (worker.sequence++ % 50);
+            String body = "{\"isbn\":\"" + isbn + "\",\"title\":\"Load " + isbn + "\",\"author\":\"Load Author\"}";
+            LoadClient.Response registered = client.post("books.register", "/books", body);
+            if (!registered.ok()) {
+                return;
+            }
+            String bookId = registered.json().path("id").asText();
+            UUID borrowerId = catalog.randomBorrower(random);
+            if (client.post("books.borrow", "/books/" + bookId + "/borrow/" + borrowerId, null).ok()) {
+                client.post("books.return", "/books/" + bookId + "/return", null);
+            }
+        }
+    };
+
+    private final String id;
+    private final String description;
+
+    LoadMix(String id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+
+    abstract void execute(LoadClient client, Worker worker, LoadCatalog catalog, ThreadLocalRandom random);
+
+    String id() {
+        return id;
+    }
+
+    String description() {
+        return description;
+    }
+
+    static LoadMix fromId(String id) {
+        for (LoadMix mix : values()) {
+            if (mix.id.equalsIgnoreCase(id)) {
+                return mix;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load mix: " + id);
+    }
+
+    /** Per-thread state carried between iterations. */
+    static final class Worker {
+        final int id;
+        String cursor;
+        int sequence;
+
+        Worker(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bz.librarysystem.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latencies and errors for one phase of one mix. Latencies are recorded in microseconds
+ * into per-operation HdrHistogram recorders, which are safe to write from all workers at once.
+ */
+final class LoadRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    static final String ALL_OPERATIONS = "all";
+
+    private final LoadMix mix;
+    private final String threading;
+    private final int threads;
+    private final Map<String, Recorder> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    private long elapsedNanos;
+    private ConnectionWait connectionWait;
+    private Map<String, Histogram> histograms = Map.of();
+
+    LoadRecorder(LoadMix mix, String threading, int threads) {
+        this.mix = mix;
+        this.threading = threading;
+        this.threads = threads;
+    }
+
+    void success(String operation, long nanos) {
+        requests.increment();
+        recorderFor(operation).recordValue(toMicros(nanos));
+    }
+
+    void failure(String operation, long nanos, String errorType) {
+        success(operation, nanos);
+        error(errorType);
+    }
+
+    /** Counts an error that did not come from a timed request, such as an unexpected response body. */
+    void error(String errorType) {
+        errors.computeIfAbsent(errorType, type -> new LongAdder()).increment();
+    }
+
+    /** Closes the phase: drains the recorders and keeps the timing and pool figures for the report. */
+    void finish(long elapsedNanos, ConnectionWait connectionWait) {
+        this.elapsedNanos = elapsedNanos;
+        this.connectionWait = connectionWait;
+        Map<String, Histogram> drained = new TreeMap<>();
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        latencies.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            drained.put(operation, histogram);
+            all.add(histogram);
+        });
+        drained.put(ALL_OPERATIONS, all);
+        this.histograms = drained;
+    }
+
+    LoadMix mix() {
+        return mix;
+    }
+
+    /** Whether the server handled this phase on platform or virtual threads. */
+    String threading() {
+        return threading;
+    }
+
+    /** Anchor and heading for this phase in the report, e.g. {@code borrow-storm-virtual}. */
+    String label() {
+        return mix.id() + "-" + threading;
+    }
+
+    int threads() {
+        return threads;
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    double throughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : requests.sum() * 1e9 / elapsedNanos;
+    }
+
+    long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    ConnectionWait connectionWait() {
+        return connectionWait;
+    }
+
+    /** Errors by type, sorted by name. */
+    Map<String, Long> errors() {
+        Map<String, Long> sorted = new TreeMap<>();
+        errors.forEach((type, count) -> sorted.put(type, count.sum()));
+        return sorted;
+    }
+
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /** Latencies in microseconds per operation, plus {@link #ALL_OPERATIONS} merging them; empty until {@link #finish}. */
+    Map<String, Histogram> histograms() {
+        return histograms;
+    }
+
+    private Recorder recorderFor(String operation) {
+        return latencies.computeIfAbsent(operation, op -> new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /** Hikari connection acquisition during the phase, taken from the {@code hikaricp.connections.acquire} timer. */
+    static final class ConnectionWait {
+        final long acquisitions;
+        final double totalMillis;
+        final double maxMillis;
+
+        ConnectionWait(long acquisitions, double totalMillis, double maxMillis) {
+            this.acquisitions = acquisitions;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        double meanMillis() {
+            return acquisitions == 0 ? 0 : totalMillis / acquisitions;
+        }
+    }
+}
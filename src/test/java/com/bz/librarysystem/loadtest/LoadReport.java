@@ -0,0 +1,144 @@
+package com.bz.librarysystem.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders load test results as a single self-contained HTML page: one section per mix with
+ * throughput, latency percentiles per operation, the error breakdown and connection pool waits.
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LoadReport() {
+    }
+
+    static void write(Path file, String settings, List<LoadRecorder> results) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Library load test</title>\n")
+                .append("<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse;margin:1em 0}")
+                .append("th,td{border:1px solid #ccc;padding:4px 10px;text-align:right}th:first-child,td:first-child{text-align:left}")
+                .append("th{background:#f0f0f0}pre{font-size:12px}</style></head><body>\n")
+                .append("<h1>Library load test</h1>\n<p>")
+                .append(escape(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))).append(" &mdash; ")
+                .append(escape(settings)).append(", Java ").append(escape(System.getProperty("java.version")))
+                .append(", ").append(Runtime.getRuntime().availableProcessors()).append(" CPUs</p>\n");
+
+        html.append("<table><tr><th>Mix</th><th>Threading</th><th>Requests</th><th>Throughput (req/s)</th><th>Errors</th>")
+                .append("<th>p50 (ms)</th><th>p99 (ms)</th><th>Mean connection wait (ms)</th></tr>\n");
+        for (LoadRecorder result : results) {
+            Histogram all = result.histograms().get(LoadRecorder.ALL_OPERATIONS);
+            html.append("<tr><td><a href=\"#").append(result.label()).append("\">").append(result.mix().id()).append("</a></td>")
+                    .append("<td>").append(result.threading()).append("</td>")
+                    .append(cell(result.requests()))
+                    .append(cell(result.throughputPerSecond()))
+                    .append(cell(result.errorCount()))
+                    .append(cell(millis(all.getValueAtPercentile(50))))
+                    .append(cell(millis(all.getValueAtPercentile(99))))
+                    .append(result.connectionWait() == null ? "<td>n/a</td>" : cell(result.connectionWait().meanMillis()))
+                    .append("</tr>\n");
+        }
+        html.append("</table>\n");
+
+        for (LoadRecorder result : results) {
+            section(html, result);
+        }
+        html.append("</body></html>\n");
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, html, StandardCharsets.UTF_8);
+    }
+
+    private static void section(StringBuilder html, LoadRecorder result) {
+        html.append("<h2 id=\"").append(result.label()).append("\">").append(result.mix().id())
+                .append(" on ").append(result.threading()).append(" threads</h2>\n<p>")
+                .append(escape(result.mix().description())).append(". ")
+                .append(result.threads()).append(" client threads for ").append(result.elapsedMillis()).append(" ms.</p>\n");
+
+        html.append("<h3>Latency</h3>\n<table><tr><th>Operation</th><th>Count</th><th>Mean (ms)</th>");
+        for (double percentile : PERCENTILES) {
+            html.append("<th>p").append(format(percentile)).append(" (ms)</th>");
+        }
+        html.append("<th>Max (ms)</th></tr>\n");
+        for (Map.Entry<String, Histogram> entry : result.histograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            html.append("<tr><td>").append(escape(entry.getKey())).append("</td>")
+                    .append(cell(histogram.getTotalCount()))
+                    .append(cell(histogram.getMean() / 1000.0));
+            for (double percentile : PERCENTILES) {
+                html.append(cell(millis(histogram.getValueAtPercentile(percentile))));
+            }
+            html.append(cell(millis(histogram.getMaxValue()))).append("</tr>\n");
+        }
+        html.append("</table>\n");
+
+        html.append("<h3>Errors</h3>\n");
+        if (result.errors().isEmpty()) {
+            html.append("<p>None.</p>\n");
+        } else {
+            html.append("<table><tr><th>Type</th><th>Count</th><th>Share of requests</th></tr>\n");
+            result.errors().forEach((type, count) -> html.append("<tr><td>").append(escape(type)).append("</td>")
+                    .append(cell(count))
+                    .append("<td>").append(String.format("%.2f%%", 100.0 * count / Math.max(1, result.requests()))).append("</td></tr>\n"));
+            html.append("</table>\n");
+        }
+
+        html.append("<h3>Connection pool</h3>\n");
+        LoadRecorder.ConnectionWait wait = result.connectionWait();
+        if (wait == null) {
+            html.append("<p>No <code>hikaricp.connections.acquire</code> timer was registered.</p>\n");
+        } else {
+            html.append("<table><tr><th>Acquisitions</th><th>Total wait (ms)</th><th>Mean wait (ms)</th><th>Recent max wait (ms)</th></tr>\n<tr>")
+                    .append("<td>").append(wait.acquisitions).append("</td>")
+                    .append(cell(wait.totalMillis))
+                    .append(cell(wait.meanMillis()))
+                    .append(cell(wait.maxMillis))
+                    .append("</tr></table>\n");
+        }
+
+        html.append("<details><summary>Latency distribution, all operations (ms)</summary><pre>")
+                .append(escape(distribution(result.histograms().get(LoadRecorder.ALL_OPERATIONS))))
+                .append("</pre></details>\n");
+    }
+
+    private static String distribution(Histogram histogram) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(print, 1000.0);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String cell(long value) {
+        return "<td>" + value + "</td>";
+    }
+
+    private static String cell(double value) {
+        return "<td>" + String.format("%.2f", value) + "</td>";
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,168 @@
+package com.bz.librarysystem.loadtest;
+
+import com.bz.librarysystem.LibraryApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load generator. Starts the application on a random port against an in-memory H2
+ * database, seeds a catalog and drives each selected {@link LoadMix} over HTTP with closed-loop
+ * workers, then writes an HTML report (first argument, default {@code target/loadtest-report.html}).
+ * Any further arguments are passed to the application, e.g. {@code --library.locks.type=ref-counted}.
+ *
+ * <p>Settings are system properties: {@code loadtest.mix} ({@code catalog}, {@code borrow-storm},
+ * {@code circulation} or {@code all}), {@code loadtest.threading} ({@code platform}, {@code virtual} or
+ * {@code both}, which runs every mix against a platform-thread and a virtual-thread server),
+ * {@code loadtest.threads}, {@code loadtest.duration} and {@code loadtest.warmup} in seconds,
+ * {@code loadtest.books}, {@code loadtest.borrowers} and {@code loadtest.popular-isbns}.
+ *
+ * <p>Workers send the next request as soon as the previous one completes, so latencies are those
+ * seen at the offered concurrency, not at a fixed arrival rate.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path report = Path.of(args.length > 0 ? args[0] : "target/loadtest-report.html");
+        List<LoadMix> mixes = mixes(System.getProperty("loadtest.mix", "all"));
+        int threads = Integer.getInteger("loadtest.threads", 32);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        int books = Integer.getInteger("loadtest.books", 10_000);
+        int borrowers = Integer.getInteger("loadtest.borrowers", 1_000);
+        int popularIsbns = Integer.getInteger("loadtest.popular-isbns", 3);
+
+        String[] applicationArgs = Arrays.copyOfRange(args, Math.min(1, args.length), args.length);
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        List<LoadRecorder> results = new ArrayList<>();
+        for (Threading threading : threadings(System.getProperty("loadtest.threading", "platform"))) {
+            try (ConfigurableApplicationContext context = start(threading, applicationArgs)) {
+                if (!threading.isActive(context.getEnvironment())) {
+                    System.out.println("Skipping " + threading.name().toLowerCase()
+                            + " threads: not supported by Java " + Runtime.version().feature());
+                    continue;
+                }
+                LoadCatalog catalog = LoadCatalog.seed(context, books, borrowers, popularIsbns);
+                String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                        + "/api/v1/library";
+                MeterRegistry registry = context.getBean(MeterRegistry.class);
+                String mode = threading.name().toLowerCase();
+
+                for (LoadMix mix : mixes) {
+                    if (!warmup.isZero()) {
+                        run(mix, mode, threads, warmup, http, baseUri, catalog, registry);
+                    }
+                    LoadRecorder result = run(mix, mode, threads, duration, http, baseUri, catalog, registry);
+                    results.add(result);
+                    System.out.printf("%-13s %-8s %8d requests %10.1f req/s  p99 %8.2f ms  errors %s%n",
+                            mix.id(), mode, result.requests(), result.throughputPerSecond(),
+                            result.histograms().get(LoadRecorder.ALL_OPERATIONS).getValueAtPercentile(99) / 1000.0,
+                            result.errors());
+                }
+            }
+        }
+        String settings = String.format("%d client threads, %ds warm-up, %ds measured, %d books, %d borrowers, %d popular ISBNs",
+                threads, warmup.toSeconds(), duration.toSeconds(), books, borrowers, popularIsbns);
+        LoadReport.write(report, settings, results);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    /** Each threading mode gets its own application and database so runs do not share state. */
+    private static ConfigurableApplicationContext start(Threading threading, String... extraArgs) {
+        String mode = threading.name().toLowerCase();
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + (threading == Threading.VIRTUAL),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--library.audit.directory=target/loadtest-logs"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static LoadRecorder run(LoadMix mix, String threading, int threads, Duration duration, HttpClient http, String baseUri,
+                                    LoadCatalog catalog, MeterRegistry registry) throws InterruptedException {
+        LoadRecorder recorder = new LoadRecorder(mix, threading, threads);
+        LoadClient client = new LoadClient(http, baseUri, recorder);
+        Collection<Timer> acquireTimers = registry.find("hikaricp.connections.acquire").timers();
+        long acquisitionsBefore = acquireTimers.stream().mapToLong(Timer::count).sum();
+        double waitBefore = acquireTimers.stream().mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS)).sum();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (int i = 0; i < threads; i++) {
+            LoadMix.Worker worker = new LoadMix.Worker(i);
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    try {
+                        mix.execute(client, worker, catalog, random);
+                    } catch (RuntimeException e) {
+                        recorder.error(e.getClass().getSimpleName());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LoadRecorder.ConnectionWait connectionWait = null;
+        if (!acquireTimers.isEmpty()) {
+            connectionWait = new LoadRecorder.ConnectionWait(
+                    acquireTimers.stream().mapToLong(Timer::count).sum() - acquisitionsBefore,
+                    acquireTimers.stream().mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS)).sum() - waitBefore,
+                    acquireTimers.stream().mapToDouble(timer -> timer.max(TimeUnit.MILLISECONDS)).max().orElse(0));
+        }
+        recorder.finish(elapsed, connectionWait);
+        return recorder;
+    }
+
+    private static List<Threading> threadings(String selection) {
+        if ("both".equalsIgnoreCase(selection)) {
+            return List.of(Threading.PLATFORM, Threading.VIRTUAL);
+        }
+        return Arrays.stream(selection.split(","))
+                .map(mode -> Threading.valueOf(mode.trim().toUpperCase()))
+                .toList();
+    }
+
+    private static List<LoadMix> mixes(String selection) {
+        if ("all".equalsIgnoreCase(selection)) {
+            return List.of(LoadMix.values());
+        }
+        return Arrays.stream(selection.split(","))
+                .map(String::trim)
+                .map(LoadMix::fromId)
+                .toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.bz.librarysystem.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookLockManagerTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    @Test
+    void striped_SecondCallerTimesOutWhileLockIsHeld() throws Exception {
+        assertTimesOutWhileHeld(new StripedBookLockManager(8, TIMEOUT));
+    }
+
+    @Test
+    void refCounted_SecondCallerTimesOutWhileLockIsHeld() throws Exception {
+        assertTimesOutWhileHeld(new RefCountedBookLockManager(TIMEOUT));
+    }
+
+    @Test
+    void striped_RoundsStripesUpAndReportsHottestStripe() throws Exception {
+        StripedBookLockManager manager = new StripedBookLockManager(1000, TIMEOUT);
+        UUID bookId = UUID.randomUUID();
+
+        assertTimesOutWhileHeld(manager, bookId);
+
+        BookLockStats stats = manager.stats();
+        assertEquals(1024, stats.getLockCount());
+        assertEquals(1, stats.getHottest().size());
+        assertEquals("stripe-" + manager.stripeOf(bookId), stats.getHottest().get(0).getKey());
+    }
+
+    @Test
+    void refCounted_RemovesIdleLocks() {
+        RefCountedBookLockManager manager = new RefCountedBookLockManager(TIMEOUT);
+
+        BookLockManager.BookLock first = manager.tryLock(UUID.randomUUID()).orElseThrow();
+        BookLockManager.BookLock second = manager.tryLock(UUID.randomUUID()).orElseThrow();
+        assertEquals(2, manager.stats().getLockCount());
+
+        first.close();
+        second.close();
+        // Closing twice must not unlock or release twice
+        second.close();
+
+        BookLockStats stats = manager.stats();
+        assertEquals(0, stats.getLockCount());
+        assertEquals(2, stats.getAcquired());
+        assertEquals(2, stats.getReleased());
+    }
+
+    private static void assertTimesOutWhileHeld(BookLockManager manager) throws Exception {
+        assertTimesOutWhileHeld(manager, UUID.randomUUID());
+    }
+
+    private static void assertTimesOutWhileHeld(BookLockManager manager, UUID bookId) throws Exception {
+        try (BookLockManager.BookLock ignored = manager.tryLock(bookId).orElseThrow()) {
+            Optional<BookLockManager.BookLock> other = CompletableFuture
+                    .supplyAsync(() -> manager.tryLock(bookId))
+                    .get(5, TimeUnit.SECONDS);
+            assertTrue(other.isEmpty());
+        }
+        // Free again once released
+        manager.tryLock(bookId).orElseThrow().close();
+
+        BookLockStats stats = manager.stats();
+        assertEquals(1, stats.getContended());
+        assertEquals(1, stats.getTimedOut());
+        assertTrue(stats.getTotalWaitNanos() >= TIMEOUT.toNanos());
+    }
+}
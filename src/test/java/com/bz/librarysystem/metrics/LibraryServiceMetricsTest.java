@@ -0,0 +1,94 @@
+package com.bz.librarysystem.metrics;
+
+import com.bz.librarysystem.exception.ResourceNotFoundException;
+import com.bz.librarysystem.service.LibraryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+class LibraryServiceMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void aspect_TimesOperationsByOutcome() {
+        LibraryService target = Mockito.mock(LibraryService.class);
+        UUID missingBook = UUID.randomUUID();
+        when(target.returnBook(missingBook)).thenThrow(new ResourceNotFoundException("No active loan"));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new LibraryServiceMetricsAspect(meterRegistry));
+        LibraryService service = factory.getProxy();
+
+        service.getAllBooks();
+        service.getAllBooks();
+        assertThrows(ResourceNotFoundException.class, () -> service.returnBook(missingBook));
+
+        assertEquals(2, meterRegistry.get(LibraryServiceMetricsAspect.TIMER_NAME)
+                .tags("operation", "getAllBooks", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(LibraryServiceMetricsAspect.TIMER_NAME)
+                .tags("operation", "returnBook", "outcome", "not-found").timer().count());
+    }
+
+    @Test
+    void outcome_ConcurrencyFailureMeansRetriesWereExhaustedOnlyForRetryableMethods() {
+        assertEquals("retry-exhausted",
+                LibraryServiceMetricsAspect.outcomeOf(new PessimisticLockingFailureException("lock timeout"), true));
+        assertEquals("conflict",
+                LibraryServiceMetricsAspect.outcomeOf(new PessimisticLockingFailureException("lock timeout"), false));
+    }
+
+    @Test
+    void timer_TagsAConcurrencyFailureOfAMethodWithoutRetryAsAConflict() {
+        LibraryService target = Mockito.mock(LibraryService.class);
+        when(target.getAllBooks()).thenThrow(new PessimisticLockingFailureException("lock timeout"));
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new LibraryServiceMetricsAspect(meterRegistry));
+        LibraryService service = factory.getProxy();
+
+        assertThrows(PessimisticLockingFailureException.class, service::getAllBooks);
+
+        assertEquals(1, meterRegistry.get(LibraryServiceMetricsAspect.TIMER_NAME)
+                .tags("operation", "getAllBooks", "outcome", "conflict").timer().count());
+    }
+
+    @Test
+    void retryListener_CountsRetriesAndFailedAttempts() {
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .maxAttempts(3)
+                .noBackoff()
+                .withListener(new RetryMetricsListener(meterRegistry))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        retryTemplate.execute(context -> {
+            context.setAttribute(RetryContext.NAME,
+                    "public LoanRecord com.bz.librarysystem.service.impl.LibraryServiceImpl.borrowBook(java.util.UUID)");
+            if (attempts.incrementAndGet() < 3) {
+                throw new PessimisticLockingFailureException("lock timeout");
+            }
+            return null;
+        });
+
+        assertEquals(2, meterRegistry.get("library.service.retries").tag("method", "borrowBook").counter().count());
+        assertEquals(2, meterRegistry.get("library.service.retry.failures")
+                .tags("method", "borrowBook", "exception", "PessimisticLockingFailureException").counter().count());
+    }
+}
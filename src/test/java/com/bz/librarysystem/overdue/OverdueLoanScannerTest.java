@@ -0,0 +1,90 @@
+package com.bz.librarysystem.overdue;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.entity.LoanEvent;
+import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.entity.ScanWatermark;
+import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanEventRepository;
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import com.bz.librarysystem.repository.ScanWatermarkRepository;
+import com.bz.librarysystem.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class OverdueLoanScannerTest {
+
+    @Autowired
+    private OverdueLoanScanner overdueLoanScanner;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanRecordRepository loanRecordRepository;
+
+    @Autowired
+    private LoanEventRepository loanEventRepository;
+
+    @Autowired
+    private ScanWatermarkRepository scanWatermarkRepository;
+
+    @Test
+    void scan_AnnouncesEachNewlyOverdueLoanOnce() {
+        Borrower borrower = saveBorrower();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        // The watermark starts at the migration; place it as if the last run had been a month ago
+        scanWatermarkRepository.save(new ScanWatermark(OverdueLoanScanner.WATERMARK, now.minusDays(30), new UUID(0, 0)));
+        LoanRecord overdue = openLoan(borrower, now.minusDays(20), now.minusDays(6));
+        LoanRecord dueToday = openLoan(borrower, now.minusDays(14), now.minusMinutes(1));
+        LoanRecord notDue = openLoan(borrower, now.minusDays(1), now.plusDays(13));
+        long offset = loanEventRepository.findMaxId();
+
+        overdueLoanScanner.scan();
+        overdueLoanScanner.scan();
+
+        List<LoanEvent> events = loanEventRepository.findAfter(offset, Limit.of(1000)).stream()
+                .filter(event -> event.getBorrowerId().equals(borrower.getId()))
+                .toList();
+        assertEquals(Set.of(overdue.getBook().getId(), dueToday.getBook().getId()),
+                Set.copyOf(events.stream().map(LoanEvent::getBookId).toList()));
+        assertEquals(2, events.size());
+        assertEquals(LoanEvent.Type.OVERDUE, events.get(0).getType());
+        assertEquals(overdue.getDueAt(), events.get(0).getOccurredAt());
+        assertEquals(0, events.stream().filter(event -> event.getBookId().equals(notDue.getBook().getId())).count());
+    }
+
+    private LoanRecord openLoan(Borrower borrower, LocalDateTime borrowedAt, LocalDateTime dueAt) {
+        BookDto registered = libraryService.registerBook(
+                new BookDto(null, "978-" + UUID.randomUUID().toString().substring(0, 8), "Overdue", "Author", null));
+        Book book = bookRepository.findById(registered.getId()).orElseThrow();
+        return loanRecordRepository.save(new LoanRecord(null, book, borrower, borrowedAt, dueAt, null));
+    }
+
+    private Borrower saveBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Late Reader");
+        borrower.setEmail("overdue-" + UUID.randomUUID() + "@example.com");
+        return borrowerRepository.save(borrower);
+    }
+}
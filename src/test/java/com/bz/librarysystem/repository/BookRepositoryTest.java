@@ -0,0 +1,83 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.dto.BookInventoryDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTitleRepository bookTitleRepository;
+
+    @BeforeEach
+    void setUp() {
+        BookTitle dune = bookTitleRepository.save(new BookTitle("111", "Dune", "Frank Herbert"));
+        BookTitle emma = bookTitleRepository.save(new BookTitle("222", "Emma", "Jane Austen"));
+        BookTitle persuasion = bookTitleRepository.save(new BookTitle("333", "Persuasion", "Jane Austen"));
+        bookRepository.saveAll(List.of(
+                copy(dune, true),
+                copy(dune, false),
+                copy(dune, false),
+                copy(emma, false),
+                copy(persuasion, true)));
+    }
+
+    @Test
+    void findInventory_CountsCopiesAndAvailability() {
+        List<BookInventoryDto> inventory = bookRepository.findInventory(null, null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(
+                new BookInventoryDto("111", "Dune", "Frank Herbert", 3, 2),
+                new BookInventoryDto("222", "Emma", "Jane Austen", 1, 1),
+                new BookInventoryDto("333", "Persuasion", "Jane Austen", 1, 0)), inventory);
+    }
+
+    @Test
+    void findInventory_FiltersAndPages() {
+        assertEquals(List.of(new BookInventoryDto("111", "Dune", "Frank Herbert", 3, 2)),
+                bookRepository.findInventory("111", null, PageRequest.of(0, 10)));
+
+        List<BookInventoryDto> secondPage = bookRepository.findInventory(null, "Jane Austen", PageRequest.of(1, 1));
+        assertEquals(1, secondPage.size());
+        assertEquals("333", secondPage.get(0).getIsbn());
+    }
+
+    @Test
+    void keysetQueries_WalkEveryBookOnce() {
+        List<Book> firstPage = bookRepository.findAllByOrderByIdAsc(Limit.of(3));
+        List<Book> secondPage = bookRepository.findByIdGreaterThanOrderByIdAsc(
+                firstPage.get(firstPage.size() - 1).getId(), Limit.of(3));
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+    }
+
+    @Test
+    void findByIsbn_ReturnsEveryCopyWithItsTitle() {
+        List<Book> copies = bookRepository.findByIsbn("111");
+
+        assertEquals(3, copies.size());
+        copies.forEach(copy -> assertEquals("Dune", copy.getTitle()));
+    }
+
+    private static Book copy(BookTitle bookTitle, boolean borrowed) {
+        Book book = new Book();
+        book.setBookTitle(bookTitle);
+        book.setBorrowed(borrowed);
+        return book;
+    }
+}
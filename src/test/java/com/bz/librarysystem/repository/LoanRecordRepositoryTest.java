@@ -0,0 +1,142 @@
+package com.bz.librarysystem.repository;
+
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.entity.LoanRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs against the schema built by the Flyway migrations, so it covers their constraints.
+ */
+@DataJpaTest
+class LoanRecordRepositoryTest {
+
+    @Autowired
+    private LoanRecordRepository loanRecordRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTitleRepository bookTitleRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    private Book book;
+    private Borrower borrower;
+
+    @BeforeEach
+    void setUp() {
+        BookTitle title = bookTitleRepository.save(new BookTitle("111", "Dune", "Frank Herbert"));
+        book = new Book();
+        book.setBookTitle(title);
+        book = bookRepository.save(book);
+        borrower = borrowerRepository.save(borrower("reader@example.com"));
+    }
+
+    @Test
+    void saveAndFlush_RejectsSecondOpenLoanOfABook() {
+        loanRecordRepository.saveAndFlush(loan(null));
+
+        assertThrows(DataIntegrityViolationException.class, () -> loanRecordRepository.saveAndFlush(loan(null)));
+    }
+
+    @Test
+    void saveAndFlush_KeepsAnyNumberOfReturnedLoansNextToTheOpenOne() {
+        loanRecordRepository.saveAndFlush(loan(LocalDateTime.now().minusDays(2)));
+        loanRecordRepository.saveAndFlush(loan(LocalDateTime.now().minusDays(1)));
+        LoanRecord open = loanRecordRepository.saveAndFlush(loan(null));
+
+        assertEquals(3, loanRecordRepository.count());
+        assertEquals(open.getId(), loanRecordRepository.findByBookIdAndReturnedAtIsNull(book.getId()).orElseThrow().getId());
+    }
+
+    @Test
+    void markReturned_FreesTheBookForANewLoan() {
+        LoanRecord first = loanRecordRepository.saveAndFlush(loan(null));
+        assertEquals(1, loanRecordRepository.markReturned(first.getId(), LocalDateTime.now()));
+
+        loanRecordRepository.saveAndFlush(loan(null));
+
+        assertEquals(1, loanRecordRepository.countByReturnedAtIsNull());
+    }
+
+    @Test
+    void saveAndFlush_RejectsDuplicateBorrowerEmail() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> borrowerRepository.saveAndFlush(borrower("reader@example.com")));
+    }
+
+    @Test
+    void findHistoryByBorrower_PagesNewestFirstAndBreaksTiesById() {
+        LocalDateTime sameTime = LocalDateTime.of(2024, 5, 1, 10, 0);
+        LoanRecord oldest = loanRecordRepository.saveAndFlush(
+                new LoanRecord(null, book, borrower, sameTime.minusDays(1), sameTime.plusDays(13), sameTime.minusHours(1)));
+        LoanRecord tiedA = loanRecordRepository.saveAndFlush(new LoanRecord(null, book, borrower, sameTime, sameTime.plusDays(14), sameTime));
+        LoanRecord tiedB = loanRecordRepository.saveAndFlush(new LoanRecord(null, book, borrower, sameTime, sameTime.plusDays(14), null));
+        // The database orders uuids by their unsigned bytes, which is their text order; UUID.compareTo is signed
+        LoanRecord[] tied = tiedA.getId().toString().compareTo(tiedB.getId().toString()) > 0
+                ? new LoanRecord[]{tiedA, tiedB} : new LoanRecord[]{tiedB, tiedA};
+
+        List<LoanDto> firstPage = loanRecordRepository.findHistoryByBorrower(borrower.getId(), Limit.of(2));
+        LoanDto last = firstPage.get(1);
+        List<LoanDto> secondPage = loanRecordRepository.findHistoryByBorrowerBefore(
+                borrower.getId(), last.getBorrowedAt(), last.getLoanId(), Limit.of(2));
+
+        assertEquals(List.of(tied[0].getId(), tied[1].getId()), firstPage.stream().map(LoanDto::getLoanId).toList());
+        assertEquals(List.of(oldest.getId()), secondPage.stream().map(LoanDto::getLoanId).toList());
+        assertEquals(new LoanDto(oldest.getId(), book.getId(), "111", borrower.getId(),
+                oldest.getBorrowedAt(), oldest.getDueAt(), oldest.getReturnedAt()), secondPage.get(0));
+        assertEquals(3, loanRecordRepository.findHistoryByBook(book.getId(), Limit.of(10)).size());
+    }
+
+    @Test
+    void findOverdue_ListsOpenLoansPastDueOldestFirst() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 15, 10, 0);
+        loanRecordRepository.saveAndFlush(
+                new LoanRecord(null, book, borrower, now.minusDays(30), now.minusDays(16), now.minusDays(20)));
+        LoanRecord open = loanRecordRepository.saveAndFlush(
+                new LoanRecord(null, book, borrower, now.minusDays(20), now.minusDays(6), null));
+        LoanRecord longerOverdue = loanRecordRepository.saveAndFlush(
+                new LoanRecord(null, copy(), borrower, now.minusDays(25), now.minusDays(11), null));
+        loanRecordRepository.saveAndFlush(new LoanRecord(null, copy(), borrower, now.minusDays(1), now.plusDays(13), null));
+
+        List<LoanDto> overdue = loanRecordRepository.findOverdue(now, Limit.of(10));
+        List<LoanDto> after = loanRecordRepository.findOverdueAfter(
+                now, longerOverdue.getDueAt(), longerOverdue.getId(), Limit.of(10));
+
+        assertEquals(List.of(longerOverdue.getId(), open.getId()), overdue.stream().map(LoanDto::getLoanId).toList());
+        assertEquals(List.of(open.getId()), after.stream().map(LoanDto::getLoanId).toList());
+    }
+
+    private Book copy() {
+        Book copy = new Book();
+        copy.setBookTitle(book.getBookTitle());
+        return bookRepository.save(copy);
+    }
+
+    private LoanRecord loan(LocalDateTime returnedAt) {
+        return new LoanRecord(null, book, borrower, LocalDateTime.now(), LocalDateTime.now().plusDays(14), returnedAt);
+    }
+
+    private static Borrower borrower(String email) {
+        Borrower borrower = new Borrower();
+        borrower.setName("Reader");
+        borrower.setEmail(email);
+        return borrower;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bz.librarysystem.search;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.repository.BookTitleRepository;
+import com.bz.librarysystem.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BookSearchIndexLoaderTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookTitleRepository bookTitleRepository;
+
+    @Autowired
+    private BookSearchIndexLoader loader;
+
+    @Test
+    void load_IndexesTitlesAlreadyInTheDatabase() {
+        String word = uniqueWord();
+        String isbn = "978-" + word;
+        bookTitleRepository.save(new BookTitle(isbn, "Stored " + word, "Loader Author"));
+
+        loader.load();
+
+        assertEquals(List.of(isbn), isbns(word));
+    }
+
+    @Test
+    void registerBook_MakesTheTitleSearchableOnCommit() {
+        String word = uniqueWord();
+        libraryService.registerBook(new BookDto(null, "978-" + word, "Registered " + word, "Service Author", null));
+
+        assertEquals(List.of("978-" + word), isbns("registered " + word));
+    }
+
+    private List<String> isbns(String query) {
+        return libraryService.searchBooks(query, null).stream().map(BookSearchResultDto::getIsbn).toList();
+    }
+
+    private static String uniqueWord() {
+        return "w" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bz.librarysystem.search;
+
+import com.bz.librarysystem.dto.BookSearchResultDto;
+import com.bz.librarysystem.entity.BookTitle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.addAll(List.of(
+                new BookTitle("978-0-261-10235-4", "The Lord of the Rings", "J. R. R. Tolkien"),
+                new BookTitle("978-0-261-10221-7", "The Hobbit", "J. R. R. Tolkien"),
+                new BookTitle("978-0-441-17271-9", "Dune", "Frank Herbert"),
+                new BookTitle("978-0-14-143951-8", "Pride and Prejudice", "Jane Austen"),
+                new BookTitle("978-2-07-036002-4", "Les Misérables", "Victor Hugo"),
+                new BookTitle("978-0-00-000000-1", "Austen: A Life", "Claire Tomalin")));
+    }
+
+    @Test
+    void tokenize_FoldsCaseAndAccentsAndSplitsOnPunctuation() {
+        assertEquals(List.of("les", "miserables", "j", "r", "r", "tolkien"),
+                BookSearchIndex.tokenize("Les Misérables — J.R.R. TOLKIEN"));
+    }
+
+    @Test
+    void search_RequiresEveryWord() {
+        assertEquals(List.of("978-0-261-10221-7"), isbns("tolkien hobbit"));
+        assertTrue(index.search("tolkien dune", 10).isEmpty());
+    }
+
+    @Test
+    void search_MatchesWordPrefixes() {
+        assertEquals(List.of("978-0-261-10235-4"), isbns("lord ring"));
+        assertEquals(List.of("978-0-14-143951-8"), isbns("prid prej"));
+    }
+
+    @Test
+    void search_FallsBackToSimilarWordsForTypos() {
+        assertEquals(2, index.search("tolkein", 10).size());
+        assertEquals(List.of("978-2-07-036002-4"), isbns("miserabels"));
+    }
+
+    @Test
+    void search_RanksTitleMatchesAboveAuthorMatches() {
+        assertEquals(List.of("978-0-00-000000-1", "978-0-14-143951-8"), isbns("austen"));
+    }
+
+    @Test
+    void search_FindsIsbnWithOrWithoutHyphens() {
+        assertEquals(List.of("978-0-441-17271-9"), isbns("9780441172719"));
+        assertEquals(List.of("978-0-441-17271-9"), isbns("978-0-441-17271-9"));
+    }
+
+    @Test
+    void search_HonoursTheLimit() {
+        assertEquals(1, index.search("tolkien", 1).size());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void addAll_IgnoresIsbnsAlreadyIndexed() {
+        index.add(new BookTitle("978-0-441-17271-9", "Dune", "Frank Herbert"));
+
+        assertEquals(6, index.size());
+        assertEquals(1, index.search("dune", 10).size());
+    }
+
+    private List<String> isbns(String query) {
+        return index.search(query, 10).stream().map(BookSearchResultDto::getIsbn).toList();
+    }
+}
@@ -0,0 +1,217 @@
+package com.bz.librarysystem.service;
+
+import com.bz.librarysystem.config.CacheConfig;
+import com.bz.librarysystem.config.CatalogVersion;
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.exception.ResourceNotFoundException;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class LibraryServiceCacheTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void getAllBooks_SecondCallIsServedFromCache() {
+        libraryService.getAllBooks();
+        double hitsBefore = hits(CacheConfig.BOOKS);
+
+        List<BookDto> first = libraryService.getAllBooks();
+        List<BookDto> second = libraryService.getAllBooks();
+
+        assertSame(first, second);
+        assertEquals(hitsBefore + 2, hits(CacheConfig.BOOKS));
+    }
+
+    @Test
+    void registerBook_EvictsTheIsbnEntry() {
+        String isbn = uniqueIsbn();
+        libraryService.registerBook(new BookDto(null, isbn, "Cached Title", "Cached Author", null));
+        assertEquals(1, libraryService.getBooksByIsbn(isbn).size());
+
+        libraryService.registerBook(new BookDto(null, isbn, "Cached Title", "Cached Author", null));
+
+        assertEquals(2, libraryService.getBooksByIsbn(isbn).size());
+    }
+
+    @Test
+    void borrowAndReturn_EvictTheBookAndItsIsbn() {
+        String isbn = uniqueIsbn();
+        BookDto book = libraryService.registerBook(new BookDto(null, isbn, "Cached Title", "Cached Author", null));
+        long version = libraryService.getBook(book.getId()).getVersion();
+        libraryService.getBooksByIsbn(isbn);
+
+        libraryService.borrowBook(book.getId(), saveBorrower().getId());
+
+        assertEquals(version + 1, libraryService.getBook(book.getId()).getVersion());
+        assertEquals(version + 1, libraryService.getBooksByIsbn(isbn).get(0).getVersion());
+
+        libraryService.returnBook(book.getId());
+
+        assertEquals(version + 2, libraryService.getBook(book.getId()).getVersion());
+        assertEquals(version + 2, libraryService.getBooksByIsbn(isbn).get(0).getVersion());
+    }
+
+    @Test
+    void getBook_ALoadOvertakenByAnEvictionIsNotCached() {
+        BookDto book = libraryService.registerBook(new BookDto(null, uniqueIsbn(), "Raced Title", "Raced Author", null));
+        Cache cache = cacheManager.getCache(CacheConfig.BOOK);
+
+        // The caller's transaction holds back the put until it commits; the eviction lands in between
+        transactionTemplate.executeWithoutResult(status -> {
+            libraryService.getBook(book.getId());
+            CompletableFuture.runAsync(() -> cache.evict(UUID.randomUUID())).join();
+        });
+
+        assertNull(cache.get(book.getId()));
+        libraryService.getBook(book.getId());
+        assertNotNull(cache.get(book.getId()));
+    }
+
+    @Test
+    void getBook_AMissThatThrowsDoesNotKeepTheNextLoadOutOfTheCache() {
+        UUID bookId = UUID.randomUUID();
+        assertThrows(ResourceNotFoundException.class, () -> libraryService.getBook(bookId));
+
+        String isbn = uniqueIsbn();
+        jdbcTemplate.update("insert into book_titles (isbn, title, author, version) values (?, 'Emma', 'Jane Austen', 0)", isbn);
+        jdbcTemplate.update("insert into books (id, isbn, version, is_borrowed) values (?, ?, 0, false)", bookId, isbn);
+        cacheManager.getCache(CacheConfig.BOOK).evict(UUID.randomUUID());
+
+        assertSame(libraryService.getBook(bookId), libraryService.getBook(bookId));
+    }
+
+    @Test
+    void catalogVersion_MovesWithCommittedWritesOnly() throws Exception {
+        String before = settledEtag();
+        libraryService.getAllBooks();
+        libraryService.getBookInventory(null, null, 0, 10);
+        assertEquals(before, catalogVersion.etag("books"));
+
+        BookDto book = libraryService.registerBook(new BookDto(null, uniqueIsbn(), "Tagged Title", "Tagged Author", null));
+        String registered = settledEtag();
+        assertNotEquals(before, registered);
+
+        libraryService.borrowBook(book.getId(), saveBorrower().getId());
+        assertNotEquals(registered, settledEtag());
+    }
+
+    @Test
+    void borrowBook_ReadsTheBorrowerFromTheSecondLevelCache() {
+        Borrower borrower = saveBorrower();
+        BookDto first = libraryService.registerBook(new BookDto(null, uniqueIsbn(), "Cached Title", "Cached Author", null));
+        BookDto second = libraryService.registerBook(new BookDto(null, uniqueIsbn(), "Cached Title", "Cached Author", null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics("borrowers");
+        entityManagerFactory.getCache().evict(Borrower.class, borrower.getId());
+
+        long loads = statistics.getEntityStatistics(Borrower.class.getName()).getLoadCount();
+        libraryService.borrowBook(first.getId(), borrower.getId());
+        assertEquals(loads + 1, statistics.getEntityStatistics(Borrower.class.getName()).getLoadCount());
+
+        long hits = region.getHitCount();
+        libraryService.borrowBook(second.getId(), borrower.getId());
+        assertEquals(hits + 1, region.getHitCount());
+        assertEquals(loads + 1, statistics.getEntityStatistics(Borrower.class.getName()).getLoadCount());
+        assertEquals(region.getHitCount(), meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "borrowers").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void findByEmail_SecondLookupIsServedFromTheQueryCache() {
+        Borrower borrower = saveBorrower();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        borrowerRepository.findByEmail(borrower.getEmail());
+        long hits = statistics.getQueryCacheHitCount();
+
+        assertEquals(borrower.getId(), borrowerRepository.findByEmail(borrower.getEmail()).orElseThrow().getId());
+        assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void catalogVersion_FollowsAChangeMadeByAnotherInstance() throws Exception {
+        String before = settledEtag();
+        List<BookDto> cached = libraryService.getAllBooks();
+
+        jdbcTemplate.update("update catalog_version set version = version + 1 where id = 1");
+
+        assertNotEquals(before, catalogVersion.etag("books"));
+        assertNotSame(cached, libraryService.getAllBooks());
+    }
+
+    // The counter moves on a background thread after the commit; until then there is no tag
+    private String settledEtag() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String etag = catalogVersion.etag("books");
+        while (etag == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            etag = catalogVersion.etag("books");
+        }
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+
+    private static String uniqueIsbn() {
+        return "978-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private Borrower saveBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Cache Reader");
+        borrower.setEmail(UUID.randomUUID() + "@example.com");
+        return borrowerRepository.save(borrower);
+    }
+}
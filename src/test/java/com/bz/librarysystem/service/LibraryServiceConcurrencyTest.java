@@ -0,0 +1,235 @@
+package com.bz.librarysystem.service;
+
+import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanResultDto;
+import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
+import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
+import com.bz.librarysystem.exception.ResourceNotFoundException;
+import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BookTitleRepository;
+import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class LibraryServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final String CONTENDED_ISBN = "978-0-00-000000-0";
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTitleRepository bookTitleRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanRecordRepository loanRecordRepository;
+
+    @Test
+    void borrowBook_ExactlyOneOfManyRacingBorrowersWins() throws Exception {
+        UUID bookId = saveBook().getId();
+        List<UUID> borrowerIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            borrowerIds.add(saveBorrower().getId());
+        }
+
+        List<Callable<Object>> attempts = new ArrayList<>();
+        for (UUID borrowerId : borrowerIds) {
+            attempts.add(() -> libraryService.borrowBook(bookId, borrowerId));
+        }
+        List<Object> outcomes = race(attempts);
+
+        assertEquals(1, outcomes.stream().filter(o -> !(o instanceof Throwable)).count());
+        assertEquals(THREADS - 1, outcomes.stream().filter(o -> o instanceof BookAlreadyBorrowedException).count());
+        assertTrue(bookRepository.findById(bookId).orElseThrow().isBorrowed());
+        assertTrue(loanRecordRepository.findByBookIdAndReturnedAtIsNull(bookId).isPresent());
+    }
+
+    @Test
+    void borrowAnyCopy_ManyMoreRequestsThanCopiesEachWinnerGetsADifferentCopy() throws Exception {
+        int copies = 4;
+        String isbn = "978-" + UUID.randomUUID().toString().substring(0, 8);
+        BookTitle bookTitle = bookTitleRepository.save(new BookTitle(isbn, "Popular Title", "Popular Author"));
+        for (int i = 0; i < copies; i++) {
+            Book book = new Book();
+            book.setBookTitle(bookTitle);
+            bookRepository.save(book);
+        }
+
+        List<Callable<Object>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            UUID borrowerId = saveBorrower().getId();
+            attempts.add(() -> libraryService.borrowAnyCopy(isbn, borrowerId));
+        }
+        List<Object> outcomes = race(attempts);
+
+        List<UUID> claimed = outcomes.stream()
+                .filter(o -> o instanceof LoanDto)
+                .map(o -> ((LoanDto) o).getBookId())
+                .toList();
+        assertEquals(copies, claimed.size());
+        assertEquals(copies, claimed.stream().distinct().count());
+        assertEquals(THREADS * 4 - copies,
+                outcomes.stream().filter(o -> o instanceof BookAlreadyBorrowedException).count());
+        assertTrue(bookRepository.findByIsbn(isbn).stream().allMatch(Book::isBorrowed));
+        for (UUID bookId : claimed) {
+            assertTrue(loanRecordRepository.findByBookIdAndReturnedAtIsNull(bookId).isPresent());
+        }
+    }
+
+    @Test
+    void returnBook_ExactlyOneOfManyRacingReturnsWins() throws Exception {
+        UUID bookId = saveBook().getId();
+        libraryService.borrowBook(bookId, saveBorrower().getId());
+
+        List<Callable<Object>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            attempts.add(() -> libraryService.returnBook(bookId));
+        }
+        List<Object> outcomes = race(attempts);
+
+        assertEquals(1, outcomes.stream().filter(o -> !(o instanceof Throwable)).count());
+        assertEquals(THREADS - 1, outcomes.stream().filter(o -> o instanceof ResourceNotFoundException).count());
+        assertFalse(bookRepository.findById(bookId).orElseThrow().isBorrowed());
+        assertFalse(loanRecordRepository.findByBookIdAndReturnedAtIsNull(bookId).isPresent());
+    }
+
+    @Test
+    void borrowBooksAndReturnBooks_OverlappingBatchesInAnyOrderLendAndReturnEachBookOnce() throws Exception {
+        List<UUID> bookIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bookIds.add(saveBook().getId());
+        }
+        Random random = new Random(7);
+
+        List<Callable<Object>> checkouts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            UUID borrowerId = saveBorrower().getId();
+            List<UUID> batch = new ArrayList<>(bookIds);
+            Collections.shuffle(batch, random);
+            checkouts.add(() -> libraryService.borrowBooks(borrowerId, batch, false));
+        }
+        List<Object> borrowOutcomes = race(checkouts);
+
+        // Opposite lock orders would deadlock here; every batch must complete and each book be lent exactly once
+        assertEquals(List.of(), borrowOutcomes.stream().filter(o -> o instanceof Throwable).toList());
+        assertEquals(bookIds.size(), statusCount(borrowOutcomes, LoanResultDto.Status.BORROWED));
+        for (UUID bookId : bookIds) {
+            assertTrue(bookRepository.findById(bookId).orElseThrow().isBorrowed());
+        }
+
+        List<Callable<Object>> returns = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            List<UUID> batch = new ArrayList<>(bookIds);
+            Collections.shuffle(batch, random);
+            returns.add(i % 2 == 0
+                    ? () -> libraryService.returnBooks(batch, false)
+                    : () -> libraryService.returnBook(batch.get(0)));
+        }
+        List<Object> returnOutcomes = race(returns);
+
+        assertEquals(List.of(), returnOutcomes.stream()
+                .filter(o -> o instanceof Throwable && !(o instanceof ResourceNotFoundException)).toList());
+        long returned = statusCount(returnOutcomes, LoanResultDto.Status.RETURNED)
+                + returnOutcomes.stream().filter(o -> o instanceof LoanDto).count();
+        assertEquals(bookIds.size(), returned);
+        for (UUID bookId : bookIds) {
+            assertFalse(bookRepository.findById(bookId).orElseThrow().isBorrowed());
+            assertFalse(loanRecordRepository.findByBookIdAndReturnedAtIsNull(bookId).isPresent());
+        }
+    }
+
+    @Test
+    void registerBook_RacingFirstCopiesOfAnIsbnShareOneTitle() throws Exception {
+        String isbn = "978-" + UUID.randomUUID().toString().substring(0, 8);
+        BookDto bookDto = new BookDto(null, isbn, "New Title", "New Author", null);
+
+        List<Callable<Object>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            attempts.add(() -> libraryService.registerBook(bookDto));
+        }
+        List<Object> outcomes = race(attempts);
+
+        assertEquals(List.of(), outcomes.stream().filter(o -> o instanceof Throwable).toList());
+        assertTrue(bookTitleRepository.existsById(isbn));
+        assertEquals(THREADS, bookRepository.findByIsbn(isbn).size());
+    }
+
+    // Releases all attempts at once and returns each result or the exception it threw
+    private List<Object> race(List<Callable<Object>> attempts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(attempts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> attempt : attempts) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return attempt.call();
+                    } catch (Exception e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long statusCount(List<Object> outcomes, LoanResultDto.Status status) {
+        return outcomes.stream()
+                .filter(o -> o instanceof List<?>)
+                .flatMap(o -> ((List<?>) o).stream())
+                .filter(result -> ((LoanResultDto) result).getStatus() == status)
+                .count();
+    }
+
+    private Book saveBook() {
+        BookTitle bookTitle = bookTitleRepository.findById(CONTENDED_ISBN)
+                .orElseGet(() -> bookTitleRepository.save(new BookTitle(CONTENDED_ISBN, "Contended Title", "Contended Author")));
+        Book book = new Book();
+        book.setBookTitle(bookTitle);
+        return bookRepository.save(book);
+    }
+
+    private Borrower saveBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Racer");
+        borrower.setEmail(UUID.randomUUID() + "@example.com");
+        return borrowerRepository.save(borrower);
+    }
+}
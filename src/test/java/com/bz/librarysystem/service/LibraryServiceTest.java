@@ -1,33 +1,58 @@
 package com.bz.librarysystem.service;
 
+import com.bz.librarysystem.config.CatalogVersion;
 import com.bz.librarysystem.dto.BookDto;
+import com.bz.librarysystem.dto.BookPageDto;
+import com.bz.librarysystem.dto.BookRegistrationResultDto;
+import com.bz.librarysystem.dto.BookSearchResultDto;
 import com.bz.librarysystem.dto.BorrowerDto;
+import com.bz.librarysystem.dto.BorrowerRegistrationResultDto;
+import com.bz.librarysystem.dto.LoanDto;
+import com.bz.librarysystem.dto.LoanPageDto;
+import com.bz.librarysystem.dto.LoanResultDto;
 import com.bz.librarysystem.entity.Book;
+import com.bz.librarysystem.entity.BookTitle;
 import com.bz.librarysystem.entity.Borrower;
+import com.bz.librarysystem.entity.LoanEvent;
 import com.bz.librarysystem.entity.LoanRecord;
+import com.bz.librarysystem.exception.BatchRejectedException;
 import com.bz.librarysystem.exception.BookAlreadyBorrowedException;
+import com.bz.librarysystem.exception.BookBusyException;
 import com.bz.librarysystem.exception.ResourceNotFoundException;
 import com.bz.librarysystem.exception.InvalidBookDataException;
+import com.bz.librarysystem.lock.BookLockManager;
+import com.bz.librarysystem.lock.StripedBookLockManager;
+import com.bz.librarysystem.repository.ArchivedLoanRepository;
 import com.bz.librarysystem.repository.BookRepository;
+import com.bz.librarysystem.repository.BookTitleRepository;
 import com.bz.librarysystem.repository.BorrowerRepository;
+import com.bz.librarysystem.repository.LoanEventRepository;
 import com.bz.librarysystem.repository.LoanRecordRepository;
+import com.bz.librarysystem.search.BookSearchIndex;
 import com.bz.librarysystem.service.impl.LibraryServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +62,9 @@ class LibraryServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookTitleRepository bookTitleRepository;
+
     @Mock
     private BorrowerRepository borrowerRepository;
 
@@ -44,7 +72,22 @@ class LibraryServiceTest {
     private LoanRecordRepository loanRecordRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private LoanEventRepository loanEventRepository;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Spy
+    private BookLockManager bookLockManager = new StripedBookLockManager(16, Duration.ofMillis(100));
+
+    @Spy
+    private BookSearchIndex bookSearchIndex = new BookSearchIndex();
+
+    @Spy
+    private LoanPolicy loanPolicy = new LoanPolicy(Duration.ofDays(14));
+
+    @Mock
+    private CatalogVersion catalogVersion;
 
     @InjectMocks
     private LibraryServiceImpl libraryService;
@@ -66,9 +109,7 @@ class LibraryServiceTest {
     void setUp() {
         testBook = new Book();
         testBook.setId(TEST_BOOK_UUID);
-        testBook.setIsbn("978-0-7475-3269-9");
-        testBook.setTitle("Test Book");
-        testBook.setAuthor("Test Author");
+        testBook.setBookTitle(new BookTitle("978-0-7475-3269-9", "Test Book", "Test Author"));
         testBook.setBorrowed(false);
 
         testBorrower = new Borrower();
@@ -90,12 +131,15 @@ class LibraryServiceTest {
         loanRecord.setBook(testBook);
         loanRecord.setBorrower(testBorrower);
         loanRecord.setBorrowedAt(LocalDateTime.now().minusDays(20));
+        loanRecord.setDueAt(LocalDateTime.now().minusDays(6));
         loanRecord.setId(TEST_LOANRECORD_UUID);
         loanRecord.setReturnedAt(null);
     }
 
     @Test
     void registerBook_Success() {
+        when(bookTitleRepository.findById(bookDTO.getIsbn())).thenReturn(Optional.empty());
+        when(bookTitleRepository.save(any(BookTitle.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
         // When
         BookDto result = libraryService.registerBook(bookDTO);
@@ -105,6 +149,7 @@ class LibraryServiceTest {
         assertEquals(bookDTO.getIsbn(), result.getIsbn());
         assertEquals(bookDTO.getTitle(), result.getTitle());
         assertEquals(bookDTO.getAuthor(), result.getAuthor());
+        verify(bookTitleRepository).save(any(BookTitle.class));
         verify(bookRepository).save(any(Book.class));
     }
 
@@ -125,7 +170,6 @@ class LibraryServiceTest {
 
         List<Book> books = List.of(testBook);
         when(bookRepository.findAll()).thenReturn(books);
-        when(modelMapper.map(testBook, BookDto.class)).thenReturn(bookDTO);
 
         // When
         List<BookDto> result = libraryService.getAllBooks();
@@ -137,57 +181,122 @@ class LibraryServiceTest {
         assertEquals(testBook.getTitle(), result.get(0).getTitle());
         assertEquals(testBook.getAuthor(), result.get(0).getAuthor());
 
+        assertEquals(testBook.getId(), result.get(0).getId());
+
         verify(bookRepository).findAll();
-        verify(modelMapper).map(testBook, BookDto.class);
 
     }
 
+    @Test
+    void borrowBook_Success() {
+        testBook.setBorrowed(true);
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.markBorrowed(TEST_BOOK_UUID)).thenReturn(1);
+        when(bookRepository.findById(TEST_BOOK_UUID)).thenReturn(Optional.of(testBook));
+        when(loanRecordRepository.saveAndFlush(any(LoanRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LoanDto result = libraryService.borrowBook(TEST_BOOK_UUID, TEST_BORROWER_UUID);
+
+        assertEquals(TEST_BOOK_UUID, result.getBookId());
+        assertEquals("978-0-7475-3269-9", result.getIsbn());
+        assertEquals(TEST_BORROWER_UUID, result.getBorrowerId());
+        assertNotNull(result.getBorrowedAt());
+        assertEquals(result.getBorrowedAt().plusDays(14), result.getDueAt());
+        assertNull(result.getReturnedAt());
+        verify(loanEventRepository).saveAll(List.of(new LoanEvent(null, LoanEvent.Type.BORROWED, TEST_BOOK_UUID,
+                "978-0-7475-3269-9", TEST_BORROWER_UUID, result.getBorrowedAt())));
+    }
+
+    @Test
+    void borrowBook_BorrowerNotFound() {
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () ->
+            libraryService.borrowBook(TEST_BOOK_UUID, TEST_BORROWER_UUID)
+        );
+        verify(bookRepository, never()).markBorrowed(any());
+    }
+
     @Test
     void borrowBook_BookNotFound() {
-        when(bookRepository.findById(TEST_BOOK_UUID)).thenReturn(Optional.empty());
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.markBorrowed(TEST_BOOK_UUID)).thenReturn(0);
+        when(bookRepository.existsById(TEST_BOOK_UUID)).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () ->
             libraryService.borrowBook(TEST_BOOK_UUID, TEST_BORROWER_UUID)
         );
-        verify(bookRepository).findById(TEST_BOOK_UUID);
+        verify(bookRepository).markBorrowed(TEST_BOOK_UUID);
     }
 
     @Test
     void borrowBook_AlreadyBorrowed() {
-        testBook.setBorrowed(true);
-        when(bookRepository.findById(TEST_BOOK_UUID)).thenReturn(Optional.of(testBook));
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.markBorrowed(TEST_BOOK_UUID)).thenReturn(0);
+        when(bookRepository.existsById(TEST_BOOK_UUID)).thenReturn(true);
 
         assertThrows(BookAlreadyBorrowedException.class, () ->
             libraryService.borrowBook(TEST_BOOK_UUID, TEST_BORROWER_UUID)
         );
-        verify(bookRepository).findById(TEST_BOOK_UUID);
+        verify(loanRecordRepository, never()).saveAndFlush(any());
+        verify(loanEventRepository, never()).saveAll(any());
     }
 
     @Test
-    void returnBook_Success() {
+    void borrowBook_BookLockedElsewhere_FailsFast() throws Exception {
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try (BookLockManager.BookLock ignored = bookLockManager.tryLock(TEST_BOOK_UUID).orElseThrow()) {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            assertThrows(BookBusyException.class, () ->
+                libraryService.borrowBook(TEST_BOOK_UUID, TEST_BORROWER_UUID)
+            );
+            verify(bookRepository, never()).markBorrowed(any());
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+    }
 
+    @Test
+    void returnBook_Success() {
         testBook.setBorrowed(true);
-        Book savedBook = new Book();
-        BeanUtils.copyProperties(testBook, savedBook);
-        savedBook.setBorrowed(false);
-
-        LoanRecord savedLoanRecord = new LoanRecord();
-        BeanUtils.copyProperties(loanRecord, savedLoanRecord);
-        savedLoanRecord.setReturnedAt(LocalDateTime.now());
 
-        // When
-        when(bookRepository.save(any(Book.class))).thenReturn(savedBook);
         when(loanRecordRepository.findByBookIdAndReturnedAtIsNull(TEST_BOOK_UUID))
                 .thenReturn(Optional.of(loanRecord));
-        when(loanRecordRepository.save(any(LoanRecord.class))).thenReturn(savedLoanRecord);
+        when(loanRecordRepository.markReturned(eq(TEST_LOANRECORD_UUID), any(LocalDateTime.class))).thenReturn(1);
+        when(bookRepository.markAvailable(TEST_BOOK_UUID)).thenReturn(1);
 
-        // Then
-        LoanRecord result = libraryService.returnBook(TEST_BOOK_UUID);
+        LoanDto result = libraryService.returnBook(TEST_BOOK_UUID);
 
         assertNotNull(result);
-        assertFalse(result.getBook().isBorrowed());
+        assertEquals(TEST_LOANRECORD_UUID, result.getLoanId());
+        assertEquals(TEST_BOOK_UUID, result.getBookId());
         assertNotNull(result.getReturnedAt());
+        verify(loanEventRepository).saveAll(List.of(new LoanEvent(null, LoanEvent.Type.RETURNED, TEST_BOOK_UUID,
+                "978-0-7475-3269-9", TEST_BORROWER_UUID, result.getReturnedAt())));
+    }
+
+    @Test
+    void returnBook_ConcurrentlyReturned() {
+        when(loanRecordRepository.findByBookIdAndReturnedAtIsNull(TEST_BOOK_UUID))
+                .thenReturn(Optional.of(loanRecord));
+        when(loanRecordRepository.markReturned(eq(TEST_LOANRECORD_UUID), any(LocalDateTime.class))).thenReturn(0);
 
+        assertThrows(ResourceNotFoundException.class, () ->
+            libraryService.returnBook(TEST_BOOK_UUID)
+        );
+        verify(bookRepository, never()).markAvailable(any());
     }
 
     @Test
@@ -201,6 +310,77 @@ class LibraryServiceTest {
     }
 
 
+    @Test
+    void borrowBooks_ReportsEachItemAndWritesAllLoansInOneBatch() {
+        Book borrowedBook = new Book();
+        borrowedBook.setId(UUID.randomUUID());
+        borrowedBook.setBorrowed(true);
+        UUID missingBookId = UUID.randomUUID();
+
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testBook, borrowedBook));
+        when(loanRecordRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<LoanResultDto> results = libraryService.borrowBooks(TEST_BORROWER_UUID,
+                List.of(TEST_BOOK_UUID, borrowedBook.getId(), missingBookId, TEST_BOOK_UUID), false);
+
+        assertEquals(List.of(LoanResultDto.Status.BORROWED, LoanResultDto.Status.REJECTED,
+                        LoanResultDto.Status.REJECTED, LoanResultDto.Status.REJECTED),
+                results.stream().map(LoanResultDto::getStatus).toList());
+        assertEquals("Book is borrowed already", results.get(1).getError());
+        assertEquals("Book not found", results.get(2).getError());
+        assertEquals(missingBookId, results.get(2).getBookId());
+        assertTrue(testBook.isBorrowed());
+        assertEquals(TEST_BORROWER_UUID, results.get(0).getLoan().getBorrowerId());
+        verify(bookRepository, times(1)).findAllByIdForUpdate(any());
+        verify(loanRecordRepository, times(1)).saveAllAndFlush(anyList());
+        verify(bookRepository, never()).markBorrowed(any());
+    }
+
+    @Test
+    void borrowBooks_AllOrNothing_RejectsTheWholeBatch() {
+        Book borrowedBook = new Book();
+        borrowedBook.setId(UUID.randomUUID());
+        borrowedBook.setBorrowed(true);
+
+        when(borrowerRepository.findById(TEST_BORROWER_UUID)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testBook, borrowedBook));
+
+        BatchRejectedException e = assertThrows(BatchRejectedException.class, () -> libraryService.borrowBooks(
+                TEST_BORROWER_UUID, List.of(TEST_BOOK_UUID, borrowedBook.getId()), true));
+
+        assertTrue(e.getMessage().contains("item 1"));
+        verify(loanRecordRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void returnBooks_ReturnsOpenLoansAndReleasesTheirBooksTogether() {
+        testBook.setBorrowed(true);
+        Book availableBook = new Book();
+        availableBook.setId(UUID.randomUUID());
+
+        when(bookRepository.findByIdIn(any())).thenReturn(List.of(testBook, availableBook));
+        when(loanRecordRepository.findOpenByBookIdsForUpdate(any())).thenReturn(List.of(loanRecord));
+
+        List<LoanResultDto> results = libraryService.returnBooks(List.of(availableBook.getId(), TEST_BOOK_UUID), false);
+
+        assertEquals(LoanResultDto.Status.REJECTED, results.get(0).getStatus());
+        assertEquals("No active loan found for this book", results.get(0).getError());
+        assertEquals(LoanResultDto.Status.RETURNED, results.get(1).getStatus());
+        assertNotNull(results.get(1).getLoan().getReturnedAt());
+        assertEquals(TEST_LOANRECORD_UUID, results.get(1).getLoan().getLoanId());
+        verify(bookRepository).markAllAvailable(List.of(TEST_BOOK_UUID));
+        verify(loanRecordRepository, never()).markReturned(any(), any());
+    }
+
+    @Test
+    void borrowBooks_TooLarge_ThrowsException() {
+        List<UUID> batch = java.util.Collections.nCopies(101, TEST_BOOK_UUID);
+
+        assertThrows(IllegalArgumentException.class, () -> libraryService.borrowBooks(TEST_BORROWER_UUID, batch, false));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.returnBooks(null, false));
+    }
+
     @Test
     void registerBook_DifferentIsbnSameTitleAuthor_Success() {
         // Req: Different ISBN means different books
@@ -214,8 +394,10 @@ class LibraryServiceTest {
         book2.setTitle("Same Title");
         book2.setAuthor("Same Author");
 
-        when(bookRepository.findByIsbn("123-456")).thenReturn(List.of());
-        when(bookRepository.findByIsbn("789-012")).thenReturn(List.of());
+        when(bookTitleRepository.findById("123-456")).thenReturn(Optional.empty());
+        when(bookTitleRepository.findById("789-012")).thenReturn(Optional.empty());
+        when(bookTitleRepository.save(any(BookTitle.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
         when(bookRepository.save(any(Book.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -235,14 +417,11 @@ class LibraryServiceTest {
         newBook.setTitle("Different Title");
         newBook.setAuthor("Different Author");
 
-        Book existingBook = new Book();
-        existingBook.setIsbn("123-456");
-        existingBook.setTitle("Original Title");
-        existingBook.setAuthor("Original Author");
-
-        when(bookRepository.findByIsbn("123-456")).thenReturn(List.of(existingBook));
+        when(bookTitleRepository.findById("123-456"))
+                .thenReturn(Optional.of(new BookTitle("123-456", "Original Title", "Original Author")));
 
         assertThrows(InvalidBookDataException.class, () -> libraryService.registerBook(newBook));
+        verify(bookRepository, never()).save(any());
     }
 
     @Test
@@ -253,12 +432,8 @@ class LibraryServiceTest {
         bookDto.setTitle("Test Title");
         bookDto.setAuthor("Test Author");
 
-        Book existingBook = new Book();
-        existingBook.setIsbn("123-456");
-        existingBook.setTitle("Test Title");
-        existingBook.setAuthor("Test Author");
-
-        when(bookRepository.findByIsbn("123-456")).thenReturn(List.of(existingBook));
+        when(bookTitleRepository.findById("123-456"))
+                .thenReturn(Optional.of(new BookTitle("123-456", "Test Title", "Test Author")));
         when(bookRepository.save(any(Book.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -268,18 +443,16 @@ class LibraryServiceTest {
         assertEquals(bookDto.getIsbn(), result.getIsbn());
         assertEquals(bookDto.getTitle(), result.getTitle());
         assertEquals(bookDto.getAuthor(), result.getAuthor());
+        // The title lookup replaces loading the existing copies
+        verify(bookRepository, never()).findByIsbn(any());
+        verify(bookTitleRepository, never()).save(any());
     }
 
 
     @Test
     void registerBook_WithExistingIsbn_Success() {
-        Book existingBook = new Book();
-
-        existingBook.setIsbn(bookDTO.getIsbn());
-        existingBook.setTitle(bookDTO.getTitle());
-        existingBook.setAuthor(bookDTO.getAuthor());
-
-        when(bookRepository.findByIsbn(bookDTO.getIsbn())).thenReturn(List.of(existingBook));
+        when(bookTitleRepository.findById(bookDTO.getIsbn()))
+                .thenReturn(Optional.of(new BookTitle(bookDTO.getIsbn(), bookDTO.getTitle(), bookDTO.getAuthor())));
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
 
         BookDto result = libraryService.registerBook(bookDTO);
@@ -290,14 +463,186 @@ class LibraryServiceTest {
 
     @Test
     void registerBook_WithInconsistentIsbn_ThrowsException() {
-        Book existingBook = new Book();
-        existingBook.setIsbn(bookDTO.getIsbn());
-        existingBook.setTitle("Different Title");
-        existingBook.setAuthor("Different Author");
-
-        when(bookRepository.findByIsbn(bookDTO.getIsbn())).thenReturn(List.of(existingBook));
+        when(bookTitleRepository.findById(bookDTO.getIsbn()))
+                .thenReturn(Optional.of(new BookTitle(bookDTO.getIsbn(), "Different Title", "Different Author")));
 
         assertThrows(InvalidBookDataException.class, () -> libraryService.registerBook(bookDTO));
     }
 
-}
\ No newline at end of file
+    @Test
+    void registerBooks_ValidatesEachIsbnOncePerBatch() {
+        when(bookTitleRepository.findAllById(any()))
+                .thenReturn(List.of(new BookTitle("123-456", "Stored Title", "Stored Author")));
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookDto> batch = List.of(
+                new BookDto(null, "123-456", "Stored Title", "Stored Author", null),
+                new BookDto(null, "123-456", "Other Title", "Stored Author", null),
+                new BookDto(null, "789-012", "New Title", "New Author", null),
+                new BookDto(null, "789-012", "New Title", "New Author", null),
+                new BookDto(null, "789-012", "New Title", "Someone Else", null),
+                new BookDto(null, "", "No Isbn", "Author", null));
+
+        List<BookRegistrationResultDto> results = libraryService.registerBooks(batch);
+
+        assertEquals(6, results.size());
+        assertEquals(BookRegistrationResultDto.Status.REGISTERED, results.get(0).getStatus());
+        assertEquals(BookRegistrationResultDto.Status.REJECTED, results.get(1).getStatus());
+        assertEquals(BookRegistrationResultDto.Status.REGISTERED, results.get(2).getStatus());
+        assertEquals(BookRegistrationResultDto.Status.REGISTERED, results.get(3).getStatus());
+        assertEquals(BookRegistrationResultDto.Status.REJECTED, results.get(4).getStatus());
+        assertEquals(BookRegistrationResultDto.Status.REJECTED, results.get(5).getStatus());
+        assertEquals(4, results.get(4).getIndex());
+
+        verify(bookTitleRepository, times(1)).findAllById(any());
+        // Only the ISBN first seen in the batch gets a new title, however many copies it has
+        verify(bookTitleRepository).saveAll(List.of(new BookTitle("789-012", "New Title", "New Author")));
+        verify(bookRepository, times(1)).saveAll(anyList());
+        // Only the new title reaches the search index
+        assertEquals(List.of("789-012"), libraryService.searchBooks("new title", null).stream()
+                .map(BookSearchResultDto::getIsbn).toList());
+        assertTrue(libraryService.searchBooks("stored", null).isEmpty());
+    }
+
+    @Test
+    void searchBooks_InvalidArguments_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> libraryService.searchBooks(" ", null));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.searchBooks("dune", 101));
+    }
+
+    @Test
+    void registerBooks_TooLarge_ThrowsException() {
+        List<BookDto> batch = java.util.Collections.nCopies(1001, bookDTO);
+
+        assertThrows(InvalidBookDataException.class, () -> libraryService.registerBooks(batch));
+    }
+
+    @Test
+    void registerBorrowers_LooksUpEveryEmailOncePerBatch() {
+        Borrower stored = new Borrower();
+        stored.setEmail("taken@example.com");
+        when(borrowerRepository.findByEmailIn(any())).thenReturn(List.of(stored));
+        when(borrowerRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BorrowerDto> batch = List.of(
+                new BorrowerDto(null, "taken@example.com", "Taken"),
+                new BorrowerDto(null, "new@example.com", "New"),
+                new BorrowerDto(null, "new@example.com", "Repeated"),
+                new BorrowerDto(null, "", "No Email"));
+
+        List<BorrowerRegistrationResultDto> results = libraryService.registerBorrowers(batch);
+
+        assertEquals(List.of(BorrowerRegistrationResultDto.Status.REJECTED,
+                        BorrowerRegistrationResultDto.Status.REGISTERED,
+                        BorrowerRegistrationResultDto.Status.REJECTED,
+                        BorrowerRegistrationResultDto.Status.REJECTED),
+                results.stream().map(BorrowerRegistrationResultDto::getStatus).toList());
+        assertEquals("Borrower with this email already exists", results.get(2).getError());
+        verify(borrowerRepository, times(1)).findByEmailIn(any());
+        verify(borrowerRepository, never()).findByEmail(any());
+        verify(borrowerRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void getBooksPage_ReturnsCursorWhenMoreRowsExist() {
+        Book second = new Book();
+        second.setId(UUID.randomUUID());
+        BookDto firstDto = new BookDto(TEST_BOOK_UUID, "978-0-7475-3269-9", "Test Book", "Test Author", null);
+
+        when(bookRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(testBook, second));
+
+        BookPageDto firstPage = libraryService.getBooksPage(null, 1);
+
+        assertEquals(List.of(firstDto), firstPage.getItems());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(TEST_BOOK_UUID, Limit.of(2))).thenReturn(List.of(second));
+
+        BookPageDto lastPage = libraryService.getBooksPage(firstPage.getNextCursor(), 1);
+
+        assertEquals(1, lastPage.getItems().size());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getBookLoans_MergesArchivedLoansIntoThePage() {
+        LocalDateTime borrowedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        LoanDto open = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID, borrowedAt,
+                borrowedAt.plusDays(14), null);
+        LoanDto archived = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID,
+                borrowedAt.minusYears(1), borrowedAt.minusYears(1).plusDays(14), borrowedAt.minusYears(1).plusDays(3));
+        LoanDto olderArchived = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID,
+                borrowedAt.minusYears(2), borrowedAt.minusYears(2).plusDays(14), borrowedAt.minusYears(2).plusDays(3));
+
+        when(loanRecordRepository.findHistoryByBook(TEST_BOOK_UUID, Limit.of(3))).thenReturn(List.of(open));
+        when(archivedLoanRepository.findHistoryByBook(TEST_BOOK_UUID, Limit.of(3))).thenReturn(List.of(archived, olderArchived));
+
+        LoanPageDto page = libraryService.getBookLoans(TEST_BOOK_UUID, null, 2);
+
+        assertEquals(List.of(open, archived), page.getItems());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void getOverdueLoans_PagesByDueAtAndId() {
+        LocalDateTime dueAt = LocalDateTime.now().minusDays(3);
+        LoanDto longest = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID,
+                dueAt.minusDays(16), dueAt.minusDays(2), null);
+        LoanDto shortest = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID,
+                dueAt.minusDays(14), dueAt, null);
+
+        when(loanRecordRepository.findOverdue(any(LocalDateTime.class), eq(Limit.of(2)))).thenReturn(List.of(longest, shortest));
+
+        LoanPageDto firstPage = libraryService.getOverdueLoans(null, 1);
+
+        assertEquals(List.of(longest), firstPage.getItems());
+
+        when(loanRecordRepository.findOverdueAfter(any(LocalDateTime.class), eq(longest.getDueAt()),
+                eq(longest.getLoanId()), eq(Limit.of(2)))).thenReturn(List.of(shortest));
+
+        LoanPageDto lastPage = libraryService.getOverdueLoans(firstPage.getNextCursor(), 1);
+
+        assertEquals(List.of(shortest), lastPage.getItems());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getBorrowerLoans_PagesByBorrowedAtAndId() {
+        LocalDateTime borrowedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        LoanDto newest = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID, borrowedAt,
+                borrowedAt.plusDays(14), null);
+        LoanDto older = new LoanDto(UUID.randomUUID(), TEST_BOOK_UUID, "111", TEST_BORROWER_UUID,
+                borrowedAt.minusDays(1), borrowedAt.plusDays(13), borrowedAt);
+
+        when(loanRecordRepository.findHistoryByBorrower(TEST_BORROWER_UUID, Limit.of(2))).thenReturn(List.of(newest, older));
+
+        LoanPageDto firstPage = libraryService.getBorrowerLoans(TEST_BORROWER_UUID, null, 1);
+
+        assertEquals(List.of(newest), firstPage.getItems());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(loanRecordRepository.findHistoryByBorrowerBefore(TEST_BORROWER_UUID, borrowedAt, newest.getLoanId(), Limit.of(2)))
+                .thenReturn(List.of(older));
+
+        LoanPageDto lastPage = libraryService.getBorrowerLoans(TEST_BORROWER_UUID, firstPage.getNextCursor(), 1);
+
+        assertEquals(List.of(older), lastPage.getItems());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getBookLoans_UnknownBook_ThrowsException() {
+        when(loanRecordRepository.findHistoryByBook(TEST_BOOK_UUID, Limit.of(101))).thenReturn(List.of());
+        when(bookRepository.existsById(TEST_BOOK_UUID)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> libraryService.getBookLoans(TEST_BOOK_UUID, null, null));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.getBookLoans(TEST_BOOK_UUID, "not-a-cursor", 10));
+    }
+
+    @Test
+    void getBooksPage_InvalidArguments_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> libraryService.getBooksPage(null, 501));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.getBooksPage("not-a-cursor", 10));
+    }
+
+}